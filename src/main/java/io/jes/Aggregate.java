@@ -1,14 +1,22 @@
 package io.jes;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import io.jes.ex.BrokenAggregateException;
 import lombok.extern.slf4j.Slf4j;
 
 import static java.util.Objects.requireNonNull;
@@ -16,8 +24,21 @@ import static java.util.Objects.requireNonNull;
 @Slf4j
 public class Aggregate {
 
+    private static final MethodType APPLIER_TYPE = MethodType.methodType(void.class, Aggregate.class, Event.class);
+
+    /**
+     * Dispatch tables of {@link Apply} methods, built once per aggregate class and shared by all its instances.
+     */
+    private static final ClassValue<Map<Class<? extends Event>, MethodHandle>> APPLIERS =
+            new ClassValue<Map<Class<? extends Event>, MethodHandle>>() {
+                @Override
+                protected Map<Class<? extends Event>, MethodHandle> computeValue(Class<?> type) {
+                    return findAppliers(type);
+                }
+            };
+
     @SuppressWarnings("squid:S2065")
-    private final transient Map<Class<? extends Event>, Consumer<? extends Event>> appliers = new HashMap<>();
+    private transient Map<Class<? extends Event>, Consumer<? extends Event>> appliers;
 
     protected UUID uuid;
     private long streamVersion;
@@ -33,30 +54,125 @@ public class Aggregate {
 
     void handleEventStream(@Nonnull Collection<Event> stream) {
         requireNonNull(stream, "Event stream must not be null");
+        final Map<Class<? extends Event>, MethodHandle> dispatchTable = APPLIERS.get(getClass());
         for (Event event : stream) {
-            final Consumer<Event> applier = applierFor(event.getClass());
-            if (applier != null) {
-                applier.accept(event);
-            }
+            apply(dispatchTable, event);
         }
         streamVersion += stream.size();
     }
 
+    /**
+     * Applies events to the aggregate one by one, as they are read from the stream, so the whole stream is never kept
+     * in memory.
+     *
+     * @param stream events to apply.
+     * @return count of applied events.
+     */
+    long handleEventStream(@Nonnull Stream<Event> stream) {
+        requireNonNull(stream, "Event stream must not be null");
+        final Map<Class<? extends Event>, MethodHandle> dispatchTable = APPLIERS.get(getClass());
+        final long initialVersion = streamVersion;
+        stream.forEachOrdered(event -> {
+            apply(dispatchTable, event);
+            streamVersion++;
+        });
+        return streamVersion - initialVersion;
+    }
+
+    private void apply(@Nonnull Map<Class<? extends Event>, MethodHandle> dispatchTable, @Nonnull Event event) {
+        final MethodHandle handle = dispatchTable.get(event.getClass());
+        if (handle != null) {
+            try {
+                handle.invokeExact(this, event);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new BrokenAggregateException(e.getMessage(), e);
+            }
+            return;
+        }
+        final Consumer<Event> applier = applierFor(event.getClass());
+        if (applier != null) {
+            applier.accept(event);
+        }
+    }
+
     @Nullable
     private Consumer<Event> applierFor(@Nonnull Class<? extends Event> type) {
         requireNonNull(type, "Event type must not be null");
         @SuppressWarnings("unchecked")
-        final Consumer<Event> consumer = (Consumer<Event>) appliers.get(type);
+        final Consumer<Event> consumer = appliers != null ? (Consumer<Event>) appliers.get(type) : null;
         if (consumer == null) {
             log.trace("Aggregate {} doesn't have a registered {} applier", getClass().getName(), type.getName());
         }
         return consumer;
     }
 
+    /**
+     * Registers applier of given event type for this aggregate instance.
+     * Note: prefer {@link Apply} annotated methods, which are resolved once per aggregate class, instead of appliers
+     * registered by each aggregate instance.
+     *
+     * @param type  type of event to apply.
+     * @param logic domain logic, that applies event to the aggregate state.
+     * @param <T>   type of event.
+     */
     protected <T extends Event> void registerApplier(@Nonnull Class<T> type, @Nonnull Consumer<T> logic) {
+        if (appliers == null) {
+            appliers = new HashMap<>();
+        }
         appliers.put(
                 requireNonNull(type, "Event type must not be null"),
                 requireNonNull(logic, "Registered domain logic must not be null")
         );
     }
+
+    @Nonnull
+    private static Map<Class<? extends Event>, MethodHandle> findAppliers(@Nonnull Class<?> type) {
+        final Map<Class<? extends Event>, MethodHandle> dispatchTable = new HashMap<>();
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        // subclass appliers override appliers of the same event type declared in superclasses
+        Class<?> current = type;
+        while (current != null && current != Aggregate.class) {
+            final Map<Class<? extends Event>, MethodHandle> declared = new HashMap<>();
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Apply.class) && !method.isSynthetic()) {
+                    final Class<? extends Event> eventType = ensureApplierSignature(method);
+                    if (declared.put(eventType, unreflect(lookup, method)) != null) {
+                        throw new BrokenAggregateException("Aggregate " + current.getName() + " has more than one "
+                                + "@Apply method for " + eventType.getName());
+                    }
+                }
+            }
+            declared.forEach(dispatchTable::putIfAbsent);
+            current = current.getSuperclass();
+        }
+        return Collections.unmodifiableMap(dispatchTable);
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Event> ensureApplierSignature(@Nonnull Method method) {
+        if (Modifier.isStatic(method.getModifiers())) {
+            throw new BrokenAggregateException("@Apply method should not be static: " + method);
+        }
+        if (method.getParameterCount() != 1 || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+            throw new BrokenAggregateException("@Apply method should have only 1 parameter, which is an instance "
+                    + "of the Event class: " + method);
+        }
+        if (!method.getReturnType().equals(Void.TYPE)) {
+            throw new BrokenAggregateException("@Apply method should not have any return value: " + method);
+        }
+        return (Class<? extends Event>) method.getParameterTypes()[0];
+    }
+
+    @Nonnull
+    private static MethodHandle unreflect(@Nonnull MethodHandles.Lookup lookup, @Nonnull Method method) {
+        try {
+            method.setAccessible(true);
+            return lookup.unreflect(method).asType(APPLIER_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new BrokenAggregateException("Can't access @Apply method " + method, e);
+        }
+    }
 }
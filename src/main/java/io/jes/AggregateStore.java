@@ -1,12 +1,18 @@
 package io.jes;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 
+import io.jes.ex.EmptyEventStreamException;
 import io.jes.snapshot.NoopSnapshotProvider;
+import io.jes.snapshot.SnapshotPolicy;
 import io.jes.snapshot.SnapshotProvider;
 
+import static java.util.Collections.emptyList;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -15,6 +21,7 @@ import static java.util.Objects.requireNonNull;
 public class AggregateStore {
 
     final SnapshotProvider snapshotter;
+    private final SnapshotPolicy snapshotPolicy;
     private final JEventStore eventStore;
 
     @SuppressWarnings({"unused"})
@@ -23,15 +30,27 @@ public class AggregateStore {
     }
 
     public AggregateStore(@Nonnull JEventStore eventStore, @Nonnull SnapshotProvider snapshotProvider) {
+        this(eventStore, snapshotProvider, SnapshotPolicy.always());
+    }
+
+    /**
+     * @param eventStore       store to read aggregate event streams from.
+     * @param snapshotProvider provider of aggregate snapshots.
+     * @param snapshotPolicy   policy, that decides which of restored aggregates are snapshotted.
+     * @throws NullPointerException if any of arguments is null.
+     */
+    public AggregateStore(@Nonnull JEventStore eventStore, @Nonnull SnapshotProvider snapshotProvider,
+                          @Nonnull SnapshotPolicy snapshotPolicy) {
         this.eventStore = requireNonNull(eventStore, "Event Store must not be null");
         this.snapshotter = requireNonNull(snapshotProvider, "Snapshot Provider must not be null");
+        this.snapshotPolicy = requireNonNull(snapshotPolicy, "Snapshot Policy must not be null");
     }
 
     /**
      * Returns specified aggregate of type {@code type} with restored state from {@link JEventStore}.
      * Note: if {@link SnapshotProvider} was specified during {@link AggregateStore} initialization, snapshotting
      * (aggregate caching) will be performed on {@code this#readBy(UUID, Class)} calls based on {@link SnapshotProvider}
-     * implementation.
+     * implementation and {@link SnapshotPolicy}.
      *
      * @param uuid identifier of event stream (uuid) to read.
      * @param type class of aggregate to load
@@ -43,12 +62,86 @@ public class AggregateStore {
     @Nonnull
     public <T extends Aggregate> T readBy(@Nonnull UUID uuid, @Nonnull Class<T> type) {
         final T aggregate = snapshotter.initialStateOf(uuid, requireNonNull(type, "Aggregate type must not be null"));
-        final Collection<Event> events = eventStore.readBy(uuid, aggregate.streamVersion());
-        if (events.isEmpty()) {
+        final long handled;
+        // events are applied as they are read, so the whole event stream is never kept in memory
+        try (final Stream<Event> events = eventStore.readStreamBy(uuid, aggregate.streamVersion())) {
+            try {
+                handled = aggregate.handleEventStream(events);
+            } catch (RuntimeException e) {
+                throw resetOnFailure(uuid, e);
+            }
+        }
+        if (handled == 0) {
+            if (aggregate.streamVersion() == 0) {
+                throw new EmptyEventStreamException("Event stream with uuid " + uuid + " not found");
+            }
+            return aggregate;
+        }
+        return snapshot(aggregate, handled);
+    }
+
+    /**
+     * Returns many aggregates of type {@code type} at once. Unlike {@link #readBy(UUID, Class)} calls in a loop,
+     * snapshots of all aggregates are fetched with one bulk request to {@link SnapshotProvider} and all event streams
+     * are read with one bulk request to {@link JEventStore} (if supported by underlying providers).
+     *
+     * @param uuids identifiers of event streams (uuids) to read.
+     * @param type  class of aggregates to load
+     * @param <T>   type of aggregates.
+     * @return recreated/restored form {@link JEventStore} aggregates mapped by uuid. Aggregates without event stream
+     *      are absent in the result.
+     * @throws NullPointerException if any of {@code uuids}/{@code type} is null.
+     */
+    @Nonnull
+    public <T extends Aggregate> Map<UUID, T> readAll(@Nonnull Collection<UUID> uuids, @Nonnull Class<T> type) {
+        requireNonNull(uuids, "Aggregate uuids must not be null");
+        requireNonNull(type, "Aggregate type must not be null");
+        final Map<UUID, T> states = snapshotter.initialStatesOf(uuids, type);
+        final Map<UUID, Long> streams = new HashMap<>();
+        states.forEach((uuid, aggregate) -> streams.put(uuid, aggregate.streamVersion()));
+        final Map<UUID, Collection<Event>> events = eventStore.readBy(streams);
+
+        final Map<UUID, T> aggregates = new HashMap<>();
+        for (Map.Entry<UUID, T> state : states.entrySet()) {
+            final T aggregate = state.getValue();
+            final Collection<Event> stream = events.getOrDefault(state.getKey(), emptyList());
+            if (!stream.isEmpty()) {
+                try {
+                    aggregate.handleEventStream(stream);
+                } catch (RuntimeException e) {
+                    throw resetOnFailure(state.getKey(), e);
+                }
+                aggregates.put(state.getKey(), snapshot(aggregate, stream.size()));
+            } else if (aggregate.streamVersion() > 0) {
+                aggregates.put(state.getKey(), aggregate);
+            }
+        }
+        return aggregates;
+    }
+
+    /**
+     * Initial state of the aggregate could be the cached snapshot itself (i.e. of
+     * {@link io.jes.snapshot.InMemorySnapshotProvider}), so the snapshot, that failed event handling left partially
+     * applied, is reset: otherwise skipped events are never replayed on later reads.
+     */
+    @Nonnull
+    private RuntimeException resetOnFailure(@Nonnull UUID uuid, @Nonnull RuntimeException failure) {
+        try {
+            snapshotter.reset(uuid);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+
+    @Nonnull
+    private <T extends Aggregate> T snapshot(@Nonnull T aggregate, long handled) {
+        if (!snapshotPolicy.shouldSnapshot(aggregate, handled)) {
             return aggregate;
         }
-        aggregate.handleEventStream(events);
-        return snapshotter.snapshot(aggregate);
+        final T snapshot = snapshotter.snapshot(aggregate);
+        snapshotPolicy.onSnapshot(aggregate);
+        return snapshot;
     }
 
     /**
@@ -0,0 +1,16 @@
+package io.jes;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * This annotation indicates that the method applies some event to the {@link Aggregate} state.
+ */
+@SuppressWarnings("WeakerAccess")
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Apply {
+
+}
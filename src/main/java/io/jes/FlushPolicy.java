@@ -0,0 +1,77 @@
+package io.jes;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Flush policy of asynchronous (group commit) writes, see {@link JEventStore#writeAsync(Event...)}.
+ * Pending writes are flushed into the {@literal Event Store} as one batch as soon as {@code maxBatchSize} events
+ * accumulated or {@code maxDelay} elapsed since the first pending write, whichever comes first.
+ * When {@code queueCapacity} pending writes are waiting for flush, new writes are blocked until there is free space
+ * in the queue (backpressure).
+ */
+public final class FlushPolicy {
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    private static final long DEFAULT_MAX_DELAY_MS = 5;
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final int queueCapacity;
+
+    private FlushPolicy(int maxBatchSize, long maxDelayNanos, int queueCapacity) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelayNanos;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * @return flush policy with default settings: flush every 500 events or every 5 ms, 10000 pending writes at most.
+     */
+    @Nonnull
+    public static FlushPolicy defaults() {
+        return of(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MS, TimeUnit.MILLISECONDS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates new flush policy.
+     *
+     * @param maxBatchSize  max count of events to write in one batch.
+     * @param maxDelay      max delay of pending write before flush.
+     * @param unit          time unit of {@code maxDelay}.
+     * @param queueCapacity max count of pending writes, after which new writes will be blocked.
+     * @return configured flush policy.
+     * @throws IllegalArgumentException if any of {@code maxBatchSize}, {@code queueCapacity} is not positive or
+     *                                  {@code maxDelay} is negative.
+     * @throws NullPointerException     if {@code unit} is null.
+     */
+    @Nonnull
+    public static FlushPolicy of(int maxBatchSize, long maxDelay, @Nonnull TimeUnit unit, int queueCapacity) {
+        requireNonNull(unit, "Time unit must not be null");
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be greater than 0. Actual: " + maxBatchSize);
+        }
+        if (maxDelay < 0) {
+            throw new IllegalArgumentException("Max delay must not be negative. Actual: " + maxDelay);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be greater than 0. Actual: " + queueCapacity);
+        }
+        return new FlushPolicy(maxBatchSize, unit.toNanos(maxDelay), queueCapacity);
+    }
+
+    int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    long maxDelayNanos() {
+        return maxDelayNanos;
+    }
+
+    int queueCapacity() {
+        return queueCapacity;
+    }
+}
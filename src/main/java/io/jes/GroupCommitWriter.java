@@ -0,0 +1,185 @@
+package io.jes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+import io.jes.provider.StoreProvider;
+import io.jes.util.DaemonThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import static java.util.Arrays.asList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Coalesces concurrent writes from many threads into batched {@link StoreProvider#write(Event...)} calls according to
+ * given {@link FlushPolicy}. Events of one write are always stored contiguously and in order.
+ * Writes are coalesced only if provider writes batches atomically (see {@link StoreProvider#isAtomicBatchWrite()}),
+ * otherwise they are flushed one by one.
+ */
+@Slf4j
+class GroupCommitWriter implements AutoCloseable {
+
+    private static final long IDLE_POLL_MS = 100;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final StoreProvider provider;
+    private final boolean coalesce;
+    private final FlushPolicy policy;
+    private final BlockingQueue<PendingWrite> queue;
+    private final ExecutorService executor;
+
+    private volatile boolean closed;
+
+    GroupCommitWriter(@Nonnull StoreProvider provider, @Nonnull FlushPolicy policy) {
+        this.provider = requireNonNull(provider, "StoreProvider must not be null");
+        this.coalesce = provider.isAtomicBatchWrite();
+        this.policy = requireNonNull(policy, "FlushPolicy must not be null");
+        this.queue = new LinkedBlockingQueue<>(policy.queueCapacity());
+        this.executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory(getClass().getSimpleName()));
+        this.executor.execute(this::flushLoop);
+    }
+
+    /**
+     * Enqueues given events for the next flush. Blocks if the queue of pending writes is full.
+     *
+     * @param events events to write.
+     * @return future, completed when events are written into the {@literal Event Store}.
+     */
+    @Nonnull
+    CompletableFuture<Void> write(@Nonnull Event... events) {
+        final PendingWrite write = new PendingWrite(events);
+        if (closed) {
+            write.future.completeExceptionally(new IllegalStateException("Writer is already closed"));
+            return write.future;
+        }
+        try {
+            while (!queue.offer(write, IDLE_POLL_MS, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    write.future.completeExceptionally(new IllegalStateException("Writer is already closed"));
+                    return write.future;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.future.completeExceptionally(e);
+        }
+        // writer could be closed concurrently, so nobody will flush this write
+        if (closed && executor.isTerminated()) {
+            rejectPending();
+        }
+        return write.future;
+    }
+
+    private void flushLoop() {
+        final List<PendingWrite> batch = new ArrayList<>();
+        try {
+            while (!closed || !queue.isEmpty()) {
+                final PendingWrite first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                if (!coalesce) {
+                    flushOne(first);
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch, first.events.length);
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{} interrupted, pending writes will be rejected", getClass().getSimpleName());
+        }
+        rejectPending();
+    }
+
+    /**
+     * Rejects writes, enqueued concurrently with close, after the last flush.
+     */
+    private void rejectPending() {
+        final List<PendingWrite> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        pending.forEach(write -> write.future.completeExceptionally(new IllegalStateException("Writer is closed")));
+    }
+
+    private void collectBatch(@Nonnull List<PendingWrite> batch, int batchSize) throws InterruptedException {
+        final long deadline = System.nanoTime() + policy.maxDelayNanos();
+        int size = batchSize;
+        while (size < policy.maxBatchSize()) {
+            final long remaining = deadline - System.nanoTime();
+            final PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            size += next.events.length;
+        }
+    }
+
+    private void flush(@Nonnull List<PendingWrite> batch) {
+        if (batch.size() == 1) {
+            flushOne(batch.get(0));
+            return;
+        }
+        final List<Event> events = new ArrayList<>();
+        batch.forEach(write -> events.addAll(asList(write.events)));
+        try {
+            provider.write(events.toArray(new Event[0]));
+            batch.forEach(write -> write.future.complete(null));
+            log.trace("Flushed {} writes with {} events", batch.size(), events.size());
+        } catch (Exception e) {
+            // batch is written atomically, so nothing is written yet. One failed write must not fail the others,
+            // so fallback to write them one by one
+            log.debug("Batch write failed, fallback to separate writes", e);
+            batch.forEach(this::flushOne);
+        }
+    }
+
+    private void flushOne(@Nonnull PendingWrite write) {
+        try {
+            provider.write(write.events);
+            write.future.complete(null);
+        } catch (Exception e) {
+            write.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Flushes all pending writes and stops the writer.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("{} failed to flush pending writes in time", getClass().getSimpleName());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        // writes, enqueued between the last drain of the flush loop and its termination, are never flushed
+        rejectPending();
+        log.debug("{} closed", getClass().getSimpleName());
+    }
+
+    private static final class PendingWrite {
+
+        private final Event[] events;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingWrite(@Nonnull Event[] events) {
+            this.events = events;
+        }
+    }
+}
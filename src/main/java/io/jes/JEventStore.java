@@ -1,27 +1,45 @@
 package io.jes;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 
 import io.jes.ex.EmptyEventStreamException;
+import io.jes.provider.EnvelopeStore;
+import io.jes.provider.EventEnvelope;
 import io.jes.provider.StoreProvider;
 import io.jes.snapshot.SnapshotReader;
 
 import static io.jes.util.Check.nonEmpty;
 import static java.util.Objects.requireNonNull;
 
-public class JEventStore {
+public class JEventStore implements AutoCloseable {
 
     private static final String NON_NULL_UUID = "Event stream uuid must not be null";
+    private static final int COPY_BATCH_SIZE = 1000;
 
     private final StoreProvider provider;
+    private final FlushPolicy flushPolicy;
     private final boolean canReadSnapshots;
 
+    private volatile GroupCommitWriter writer;
+    private volatile boolean closed;
+
     public JEventStore(@Nonnull StoreProvider provider) {
+        this(provider, FlushPolicy.defaults());
+    }
+
+    public JEventStore(@Nonnull StoreProvider provider, @Nonnull FlushPolicy flushPolicy) {
         this.provider = requireNonNull(provider, "StoreProvider must not be null");
+        this.flushPolicy = requireNonNull(flushPolicy, "FlushPolicy must not be null");
         this.canReadSnapshots = provider instanceof SnapshotReader;
     }
 
@@ -46,6 +64,84 @@ public class JEventStore {
         return provider.readFrom(offset);
     }
 
+    /**
+     * Returns at most {@code limit} events of the Event Store from given offset. Allows to read the Event Store page
+     * by page, so that every page is read in a short transaction.
+     *
+     * <p>A Stream potentially wraps underlying data store-specific resources and must, therefore, be closed after
+     * usage (see {@link #readFrom(long)}).
+     *
+     * @param offset the offset to read from.
+     * @param limit  max count of events to read.
+     * @return {@link Stream} of at most {@code limit} events stored in that {@literal EventStore}.
+     * @throws IllegalArgumentException if {@code limit} is not positive.
+     */
+    public Stream<Event> readFrom(long offset, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("'limit' argument must be greater than 0. Actual: " + limit);
+        }
+        return provider.readFrom(offset, limit);
+    }
+
+    /**
+     * Returns events of given types of the Event Store from given offset. Events of other types are skipped by the
+     * underlying store (where possible), so readers, interested in a few event types, don't pay for the rest.
+     * Note: events are matched by exact type, subtypes of given types are not matched.
+     *
+     * <p>A Stream potentially wraps underlying data store-specific resources and must, therefore, be closed after
+     * usage (see {@link #readFrom(long)}).
+     *
+     * @param offset the offset to read from.
+     * @param types  types of events to read.
+     * @return {@link Stream} of events of given types stored in that {@literal EventStore}.
+     * @throws NullPointerException if types is null.
+     */
+    public Stream<Event> readFrom(long offset, @Nonnull Set<Class<? extends Event>> types) {
+        return provider.readFrom(offset, requireNonNull(types, "Event types must not be null"));
+    }
+
+    /**
+     * Returns envelopes of at most {@code limit} events of the Event Store from given offset. Unlike
+     * {@link #readFrom(long, int)}, envelopes expose global ids of events (see {@link EventEnvelope#id()}), so readers
+     * can detect gaps in ids, i.e. caused by concurrent transactions, that are not committed yet.
+     *
+     * <p>A Stream potentially wraps underlying data store-specific resources and must, therefore, be closed after
+     * usage (see {@link #readFrom(long)}).
+     *
+     * @param offset the offset to read from.
+     * @param limit  max count of envelopes to read.
+     * @return {@link Stream} of at most {@code limit} envelopes of events stored in that {@literal EventStore}.
+     * @throws IllegalArgumentException if {@code limit} is not positive.
+     * @throws IllegalStateException    if underlying store doesn't provide raw events access (see
+     *                                  {@link EnvelopeStore}).
+     */
+    public Stream<? extends EventEnvelope<?>> readEnvelopesFrom(long offset, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("'limit' argument must be greater than 0. Actual: " + limit);
+        }
+        if (!(provider instanceof EnvelopeStore)) {
+            throw new IllegalStateException("Store provider doesn't provide raw events access: " + provider);
+        }
+        return ((EnvelopeStore<?>) provider).readEnvelopesFrom(offset, limit);
+    }
+
+    /**
+     * Resolves type name, the events of given type are stored with, see {@link EventEnvelope#type()}.
+     *
+     * @param type event type to resolve name of.
+     * @return type name of given event type.
+     * @throws NullPointerException  if type is null.
+     * @throws IllegalStateException if underlying store doesn't provide raw events access (see
+     *                               {@link EnvelopeStore}).
+     */
+    @Nonnull
+    public String typeNameOf(@Nonnull Class<? extends Event> type) {
+        if (!(provider instanceof EnvelopeStore)) {
+            throw new IllegalStateException("Store provider doesn't provide raw events access: " + provider);
+        }
+        return ((EnvelopeStore<?>) provider).typeNameOf(type);
+    }
+
     /**
      * Returns all events grouped by {@literal event uuid identifier}, also known as an {@literal aggregate
      * identifier}.
@@ -74,15 +170,58 @@ public class JEventStore {
         return ((SnapshotReader) provider).readBy(requireNonNull(uuid, NON_NULL_UUID), skip);
     }
 
+    Map<UUID, Collection<Event>> readBy(@Nonnull Map<UUID, Long> streams) {
+        requireNonNull(streams, "Event streams must not be null");
+        for (Map.Entry<UUID, Long> stream : streams.entrySet()) {
+            requireNonNull(stream.getKey(), NON_NULL_UUID);
+            final long skip = stream.getValue();
+            if (skip < 0) {
+                throw new IllegalArgumentException("'skip' argument must be greater than 0. Actual: " + skip);
+            }
+        }
+        if (canReadSnapshots) {
+            return ((SnapshotReader) provider).readBy(streams);
+        }
+        final Map<UUID, Collection<Event>> events = new HashMap<>();
+        for (Map.Entry<UUID, Long> stream : streams.entrySet()) {
+            if (stream.getValue() != 0) {
+                throw new IllegalStateException("Current provider doesn't support snapshotting");
+            }
+            events.put(stream.getKey(), provider.readBy(stream.getKey()));
+        }
+        return events;
+    }
+
+    /**
+     * Lazy alternative of {@link #readBy(UUID, long)}, the stream must be closed after usage. Note: unlike
+     * {@link #readBy(UUID)}, returned stream is empty if event stream with given {@code uuid} not found.
+     */
+    Stream<Event> readStreamBy(@Nonnull UUID uuid, long skip) {
+        requireNonNull(uuid, NON_NULL_UUID);
+        if (skip == 0) {
+            return provider.readStreamBy(uuid);
+        }
+        if (skip < 0) {
+            throw new IllegalArgumentException("'skip' argument must be greater than 0. Actual: " + skip);
+        }
+        if (!canReadSnapshots) {
+            throw new IllegalStateException("Current provider doesn't support snapshotting");
+        }
+        return ((SnapshotReader) provider).readStreamBy(uuid, skip);
+    }
+
     /**
      * Write given event into {@literal Event Store}.
      * {@implNote there is no guarantee that write operation will be performed in sync manner}.
      *
      * @param event is an event to store.
-     * @throws NullPointerException if event is null.
+     * @throws NullPointerException  if event is null.
+     * @throws IllegalStateException if this store is closed.
      */
     public void write(@Nonnull Event event) {
-        provider.write(requireNonNull(event, "Event must not be null"));
+        requireNonNull(event, "Event must not be null");
+        checkNotClosed();
+        provider.write(event);
     }
 
     /**
@@ -90,12 +229,47 @@ public class JEventStore {
      * {@implNote there is no guarantee that write operation will be performed in sync manner}.
      *
      * @param events are events to store.
-     * @throws NullPointerException if events is null.
+     * @throws NullPointerException  if events is null.
+     * @throws IllegalStateException if this store is closed.
      */
     public void write(@Nonnull Event... events) {
+        checkNotClosed();
         provider.write(events);
     }
 
+    /**
+     * Asynchronously write given events into {@literal Event Store}.
+     * Concurrent asynchronous writes are coalesced and written in batches according to {@link FlushPolicy} of this
+     * store. Events of one call are always written together and in the given order.
+     * {@implNote if the queue of pending writes is full, this method blocks until there is free space in it}.
+     *
+     * @param events are events to store.
+     * @return {@link CompletableFuture}, that completes when events are stored, or completes exceptionally if the
+     *      write failed, i.e. with {@link io.jes.ex.VersionMismatchException}, or with
+     *      {@link IllegalStateException} if this store is closed.
+     * @throws NullPointerException if events is null.
+     */
+    @Nonnull
+    public CompletableFuture<Void> writeAsync(@Nonnull Event... events) {
+        requireNonNull(events, "Events must not be null");
+        GroupCommitWriter current = writer;
+        if (current == null) {
+            synchronized (this) {
+                current = writer;
+                if (current == null) {
+                    if (closed) {
+                        final CompletableFuture<Void> rejected = new CompletableFuture<>();
+                        rejected.completeExceptionally(new IllegalStateException("Event store is closed"));
+                        return rejected;
+                    }
+                    current = writer = new GroupCommitWriter(provider, flushPolicy);
+                }
+            }
+        }
+        // writer, that is closed concurrently, rejects the write itself
+        return current.write(events);
+    }
+
     /**
      * Delete a whole stream by it's {@literal uuid} (its a safe operation).
      *
@@ -138,4 +312,61 @@ public class JEventStore {
         }
     }
 
+    /**
+     * Copy whole contents of this {@literal Event Store} into given one without events deserialization: raw payloads
+     * are transferred as is (see {@link EnvelopeStore}). Events are written by batches.
+     * Note: both stores must serialize events the same way (same serialization type and options).
+     * {@implNote it's implementation specific to use STW pause during this operation}.
+     *
+     * @param store is an Event Store to copy all events.
+     * @throws NullPointerException     if store is null.
+     * @throws IllegalArgumentException if any of stores doesn't provide raw events access or their serialization
+     *                                  types differ.
+     */
+    @SuppressWarnings({"WeakerAccess", "unchecked"})
+    public void copyRawTo(@Nonnull JEventStore store) {
+        requireNonNull(store, "Store must not be null");
+        if (!(provider instanceof EnvelopeStore) || !(store.provider instanceof EnvelopeStore)) {
+            throw new IllegalArgumentException("Both stores must provide raw events access to copy them raw");
+        }
+        final EnvelopeStore<Object> source = (EnvelopeStore<Object>) provider;
+        final EnvelopeStore<Object> target = (EnvelopeStore<Object>) store.provider;
+        if (source.payloadType() != target.payloadType()) {
+            throw new IllegalArgumentException("Can't copy raw events of type " + source.payloadType()
+                    + " into store of type " + target.payloadType());
+        }
+        final List<EventEnvelope<Object>> batch = new ArrayList<>(COPY_BATCH_SIZE);
+        try (final Stream<EventEnvelope<Object>> stream = source.readEnvelopesFrom(0)) {
+            stream.forEachOrdered(envelope -> {
+                batch.add(envelope);
+                if (batch.size() == COPY_BATCH_SIZE) {
+                    target.writeEnvelopes(batch);
+                    batch.clear();
+                }
+            });
+        }
+        target.writeEnvelopes(batch);
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Event store is closed");
+        }
+    }
+
+    /**
+     * Flushes all pending asynchronous writes, further writes are rejected. Reads are still allowed. Underlying
+     * {@link StoreProvider} is not closed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+    }
+
 }
@@ -0,0 +1,13 @@
+package io.jes.ex;
+
+public class BrokenAggregateException extends RuntimeException {
+
+    public BrokenAggregateException(String message) {
+        super(message);
+    }
+
+    public BrokenAggregateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -9,4 +9,8 @@ public class BrokenStoreException extends RuntimeException {
     public BrokenStoreException(Exception cause) {
         super(cause);
     }
+
+    public BrokenStoreException(String message, Exception cause) {
+        super(message, cause);
+    }
 }
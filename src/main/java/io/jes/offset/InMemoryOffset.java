@@ -23,6 +23,11 @@ public class InMemoryOffset implements Offset {
         getOffsetByKey(key).increment();
     }
 
+    @Override
+    public void add(@Nonnull String key, long delta) {
+        getOffsetByKey(key).add(delta);
+    }
+
     @Override
     public void reset(@Nonnull String key) {
         getOffsetByKey(key).reset();
@@ -22,6 +22,21 @@ public interface Offset {
      */
     void increment(@Nonnull String key);
 
+    /**
+     * Add given delta to current offset value by specified {@code key}.
+     * Note: default implementation calls {@link #increment(String)} {@code delta} times, i.e. costs {@code delta}
+     * round trips for remote offsets. Reactors, that keep event ids as offsets, add the whole gap in ids at once, so
+     * implementations should override it with a single atomic addition.
+     *
+     * @param key   is an owner identifier, that manages this offset.
+     * @param delta value to add.
+     */
+    default void add(@Nonnull String key, long delta) {
+        for (long i = 0; i < delta; i++) {
+            increment(key);
+        }
+    }
+
     /**
      * Reset offset value by specified {@code key}.
      *
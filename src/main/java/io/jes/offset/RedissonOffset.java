@@ -30,6 +30,11 @@ public class RedissonOffset implements Offset {
         getOffsetByKey(key).increment();
     }
 
+    @Override
+    public void add(@Nonnull String key, long delta) {
+        getOffsetByKey(key).add(delta);
+    }
+
     @Override
     public void reset(@Nonnull String key) {
         getOffsetByKey(key).reset();
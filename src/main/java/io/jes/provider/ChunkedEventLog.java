@@ -0,0 +1,125 @@
+package io.jes.provider;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import io.jes.Event;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Append-only log of events, split into fixed-size chunks. Unlike copy-on-write list, append never copies already
+ * written events: when the last chunk is full, new chunk is allocated and only small chunk directory is grown.
+ *
+ * <p>Appends are serialized (single writer at a time), reads are lock-free. Each append is published through volatile
+ * {@code size} write, so readers never observe a position, which event is not written yet.
+ */
+class ChunkedEventLog {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int INITIAL_CHUNKS = 16;
+
+    private volatile AtomicReferenceArray<Event>[] chunks = newDirectory(INITIAL_CHUNKS);
+    private volatile int size;
+
+    /**
+     * Appends event to the end of the log.
+     *
+     * @param event event to append.
+     * @return position of appended event.
+     * @throws NullPointerException if event is null.
+     */
+    int append(@Nonnull Event event) {
+        return append(new Event[] {requireNonNull(event, "Event must not be null")});
+    }
+
+    /**
+     * Appends events to the end of the log contiguously, in given order.
+     *
+     * @param events events to append.
+     * @return position of the first appended event.
+     * @throws NullPointerException if any of events is null.
+     */
+    synchronized int append(@Nonnull Event... events) {
+        for (Event event : events) {
+            requireNonNull(event, "Event must not be null");
+        }
+        final int first = size;
+        for (int i = 0; i < events.length; i++) {
+            final int position = first + i;
+            final int chunk = position >>> CHUNK_BITS;
+            AtomicReferenceArray<Event>[] directory = chunks;
+            if (chunk == directory.length) {
+                directory = Arrays.copyOf(directory, directory.length << 1);
+                chunks = directory;
+            }
+            if (directory[chunk] == null) {
+                directory[chunk] = new AtomicReferenceArray<>(CHUNK_SIZE);
+            }
+            directory[chunk].lazySet(position & CHUNK_MASK, events[i]);
+        }
+        // publish appended events
+        size = first + events.length;
+        return first;
+    }
+
+    /**
+     * @param position position of the event.
+     * @return event at given position or null, if event was cleared.
+     * @throws IndexOutOfBoundsException if position is negative or not published yet.
+     */
+    @Nullable
+    Event get(int position) {
+        checkPosition(position);
+        return chunks[position >>> CHUNK_BITS].get(position & CHUNK_MASK);
+    }
+
+    /**
+     * Replaces event at given position with tombstone (null). Positions of other events never change.
+     *
+     * @param position position of the event to clear.
+     * @throws IndexOutOfBoundsException if position is negative or not published yet.
+     */
+    void clear(int position) {
+        checkPosition(position);
+        chunks[position >>> CHUNK_BITS].set(position & CHUNK_MASK, null);
+    }
+
+    /**
+     * @return count of published positions, including cleared ones.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Lazy view over the log from given position up to the last published one at the moment of the call.
+     * Cleared positions are skipped.
+     *
+     * @param from first position to read (inclusive).
+     * @return stream of events.
+     */
+    @Nonnull
+    Stream<Event> stream(long from) {
+        final int to = size;
+        final int start = (int) Math.max(0, Math.min(from, to));
+        return IntStream.range(start, to).mapToObj(this::get).filter(event -> event != null);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", size: " + size);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Event>[] newDirectory(int length) {
+        return (AtomicReferenceArray<Event>[]) new AtomicReferenceArray[length];
+    }
+}
@@ -0,0 +1,71 @@
+package io.jes.provider;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+import io.jes.Event;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Optional {@link StoreProvider} component, that provides access to events in their raw (serialized) form, see
+ * {@link EventEnvelope}.
+ *
+ * @param <T> type of event serialization.
+ */
+public interface EnvelopeStore<T> {
+
+    /**
+     * Low-level alternative of {@link StoreProvider#readFrom(long)}: returns envelopes of all events from given offset,
+     * events are not deserialized until {@link EventEnvelope#event()} is called.
+     *
+     * <p>A Stream potentially wraps underlying data store-specific resources and must, therefore, be closed after
+     * usage.
+     *
+     * @param offset the offset to read from.
+     * @return {@link Stream} of envelopes of events stored in that {@literal EventStore}.
+     */
+    Stream<EventEnvelope<T>> readEnvelopesFrom(long offset);
+
+    /**
+     * Returns envelopes of at most {@code limit} events from given offset, see {@link #readEnvelopesFrom(long)}.
+     *
+     * @param offset the offset to read from.
+     * @param limit  max count of envelopes to read.
+     * @return {@link Stream} of at most {@code limit} envelopes of events stored in that {@literal EventStore}.
+     */
+    default Stream<EventEnvelope<T>> readEnvelopesFrom(long offset, int limit) {
+        return readEnvelopesFrom(offset).limit(limit);
+    }
+
+    /**
+     * Writes raw payloads of given envelopes atomically, without serialization. Events are appended to their streams,
+     * versions of given envelopes are not verified.
+     * Note: payloads must be serialized in format of this store (see {@link #payloadType()}).
+     *
+     * @param envelopes envelopes to write.
+     * @throws NullPointerException if envelopes is null.
+     */
+    void writeEnvelopes(@Nonnull Collection<EventEnvelope<T>> envelopes);
+
+    /**
+     * Resolves type name, the events of given type are stored with (see {@link EventEnvelope#type()}), so readers can
+     * skip envelopes of uninteresting types without deserialization.
+     *
+     * @param type event type to resolve name of.
+     * @return type name, class name by default.
+     * @throws NullPointerException if type is null.
+     */
+    @Nonnull
+    default String typeNameOf(@Nonnull Class<? extends Event> type) {
+        return requireNonNull(type, "Event type must not be null").getName();
+    }
+
+    /**
+     * @return type of event serialization of this store.
+     */
+    @Nonnull
+    Class<T> payloadType();
+
+}
@@ -0,0 +1,110 @@
+package io.jes.provider;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import io.jes.Event;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Stored event in it's raw (serialized) form along with the store metadata. Payload is deserialized lazily, on the
+ * first {@link #event()} call, so envelopes can be counted, filtered by type or copied into another store without
+ * paying for deserialization.
+ * Note: envelopes are not thread-safe.
+ *
+ * @param <T> type of event serialization.
+ */
+public final class EventEnvelope<T> {
+
+    private final long id;
+    private final UUID uuid;
+    private final Long version;
+    private final String type;
+    private final Instant created;
+    private final T payload;
+    private final Function<? super T, ? extends Event> deserializer;
+
+    private Event event;
+
+    EventEnvelope(long id, @Nullable UUID uuid, @Nullable Long version, @Nullable String type,
+                  @Nullable Instant created, @Nonnull T payload,
+                  @Nonnull Function<? super T, ? extends Event> deserializer) {
+        this.id = id;
+        this.uuid = uuid;
+        this.version = version;
+        this.type = type;
+        this.created = created;
+        this.payload = requireNonNull(payload, "Event payload must not be null");
+        this.deserializer = requireNonNull(deserializer, "Deserializer must not be null");
+    }
+
+    /**
+     * @return global position of the event in the store (see {@link io.jes.JEventStore#readFrom(long)}).
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * @return identifier of the event stream, if event belongs to any.
+     */
+    @Nullable
+    public UUID uuid() {
+        return uuid;
+    }
+
+    /**
+     * @return version of the event within it's stream, if event belongs to any.
+     */
+    @Nullable
+    public Long version() {
+        return version;
+    }
+
+    /**
+     * @return type name of the event (see {@link io.jes.serializer.TypeRegistry#typeNameOf(Class)}), if stored.
+     */
+    @Nullable
+    public String type() {
+        return type;
+    }
+
+    /**
+     * @return time the event was written at by the store clock, if stored.
+     */
+    @Nullable
+    public Instant created() {
+        return created;
+    }
+
+    /**
+     * @return raw (serialized) event.
+     */
+    @Nonnull
+    public T payload() {
+        return payload;
+    }
+
+    /**
+     * Deserializes the payload on the first call, subsequent calls return the same event.
+     *
+     * @return deserialized event.
+     */
+    @Nonnull
+    public Event event() {
+        if (event == null) {
+            event = deserializer.apply(payload);
+        }
+        return event;
+    }
+
+    @Override
+    public String toString() {
+        return "EventEnvelope(id=" + id + ", uuid=" + uuid + ", version=" + version + ", type=" + type
+                + ", created=" + created + ")";
+    }
+}
@@ -1,13 +1,15 @@
 package io.jes.provider;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.LongAdder;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 
@@ -16,43 +18,185 @@ import io.jes.ex.VersionMismatchException;
 
 /**
  * In-memory {@link StoreProvider} implementation.
+ * {@implNote deleted events are replaced with tombstones, so positions of the remaining events never change}.
  */
 public class InMemoryStoreProvider implements StoreProvider {
 
-    private final List<Event> events = new CopyOnWriteArrayList<>();
-    private final Map<UUID, LongAdder> streamsVersions = new ConcurrentHashMap<>();
+    private final ChunkedEventLog events = new ChunkedEventLog();
+    private final Map<UUID, StreamIndex> streams = new ConcurrentHashMap<>();
 
     @Override
     public Stream<Event> readFrom(long offset) {
-        return events.subList((int) offset, events.size()).stream();
+        return events.stream(offset);
+    }
+
+    @Override
+    public Stream<Event> readFrom(long offset, int limit) {
+        return readFrom(offset).limit(limit);
     }
 
-    // search for O(n)
     @Override
     public Collection<Event> readBy(@Nonnull UUID uuid) {
-        return events.stream().filter(event -> uuid.equals(event.uuid())).collect(Collectors.toList());
+        final StreamIndex index = streams.get(uuid);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        final int[] positions = index.positions();
+        final List<Event> stream = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            final Event event = events.get(position);
+            // stream could be deleted concurrently
+            if (event != null) {
+                stream.add(event);
+            }
+        }
+        return stream;
     }
 
-    // todo: need to make it thread safe to write versioned events
+    /**
+     * {@inheritDoc}
+     * {@implNote version check and append are atomic per stream, so writes to different streams do not block each
+     * other}.
+     */
     @Override
     public void write(@Nonnull Event event) {
-        if (event.uuid() != null) {
-            streamsVersions.putIfAbsent(event.uuid(), new LongAdder());
-            final LongAdder actualVersion = streamsVersions.get(event.uuid());
-            final long expectedVersion = event.expectedStreamVersion();
-            if (expectedVersion != -1 && actualVersion.longValue() != expectedVersion) {
-                throw new VersionMismatchException(expectedVersion, actualVersion.longValue());
-            }
+        final UUID uuid = event.uuid();
+        if (uuid == null) {
+            events.append(event);
+            return;
         }
-        events.add(event);
-        if (event.uuid() != null) {
-            streamsVersions.get(event.uuid()).increment();
+        final StreamIndex index = lockStream(uuid);
+        try {
+            verifyStreamVersion(event, index.version());
+            index.add(events.append(event));
+        } finally {
+            index.lock.unlock();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * {@implNote events are written atomically and contiguously: either all of them, or none if any version check
+     * fails. Only streams of given events are locked, in the uuid order to avoid deadlocks}.
+     */
+    @Override
+    public void write(@Nonnull Event... events) {
+        final Map<UUID, StreamIndex> locked = new TreeMap<>();
+        try {
+            for (Event event : events) {
+                final UUID uuid = event.uuid();
+                if (uuid != null) {
+                    locked.putIfAbsent(uuid, null);
+                }
+            }
+            for (Map.Entry<UUID, StreamIndex> entry : locked.entrySet()) {
+                entry.setValue(lockStream(entry.getKey()));
+            }
+
+            final Map<UUID, Long> nextVersions = new HashMap<>();
+            for (Event event : events) {
+                final UUID uuid = event.uuid();
+                if (uuid != null) {
+                    final long actualVersion = nextVersions.getOrDefault(uuid, locked.get(uuid).version());
+                    verifyStreamVersion(event, actualVersion);
+                    nextVersions.put(uuid, actualVersion + 1);
+                }
+            }
+
+            final int first = this.events.append(events);
+            for (int i = 0; i < events.length; i++) {
+                final UUID uuid = events[i].uuid();
+                if (uuid != null) {
+                    locked.get(uuid).add(first + i);
+                }
+            }
+        } finally {
+            for (StreamIndex index : locked.values()) {
+                if (index != null) {
+                    index.lock.unlock();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isAtomicBatchWrite() {
+        return true;
+    }
+
     @Override
     public void deleteBy(@Nonnull UUID uuid) {
-        events.removeIf(event -> uuid.equals(event.uuid()));
-        streamsVersions.remove(uuid);
+        final StreamIndex index = streams.remove(uuid);
+        if (index != null) {
+            index.lock.lock();
+            try {
+                index.deleted = true;
+                for (int position : index.positions()) {
+                    events.clear(position);
+                }
+            } finally {
+                index.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Locks index of the stream with given uuid, creating it if necessary.
+     *
+     * @param uuid uuid of the stream.
+     * @return locked live (not deleted) stream index.
+     */
+    @Nonnull
+    private StreamIndex lockStream(@Nonnull UUID uuid) {
+        while (true) {
+            final StreamIndex index = streams.computeIfAbsent(uuid, key -> new StreamIndex());
+            index.lock.lock();
+            if (!index.deleted) {
+                return index;
+            }
+            // stream was deleted concurrently, so retry with the new one
+            index.lock.unlock();
+        }
+    }
+
+    private static void verifyStreamVersion(@Nonnull Event event, long actualVersion) {
+        final long expectedVersion = event.expectedStreamVersion();
+        if (expectedVersion != -1 && actualVersion != expectedVersion) {
+            throw new VersionMismatchException(expectedVersion, actualVersion);
+        }
+    }
+
+    /**
+     * Positions of the stream events in the event log. Plain int array is used to avoid boxing overhead.
+     * Writes to the stream are guarded by its own lock, so size of the index is the current stream version.
+     */
+    private static final class StreamIndex {
+
+        private static final int INITIAL_CAPACITY = 8;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int[] positions = new int[INITIAL_CAPACITY];
+        private int size;
+        private boolean deleted;
+
+        void add(int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size << 1);
+            }
+            positions[size++] = position;
+        }
+
+        int[] positions() {
+            lock.lock();
+            try {
+                return Arrays.copyOf(positions, size);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long version() {
+            return size;
+        }
     }
 }
@@ -3,30 +3,49 @@ package io.jes.provider;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Spliterators.AbstractSpliterator;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 
 import io.jes.Event;
 import io.jes.ex.BrokenStoreException;
 import io.jes.ex.VersionMismatchException;
 import io.jes.provider.jdbc.DDLFactory;
+import io.jes.provider.jdbc.PartitionDDLProducer;
 import io.jes.provider.jdbc.StoreDDLProducer;
 import io.jes.serializer.SerializationOption;
 import io.jes.serializer.Serializer;
 import io.jes.serializer.SerializerFactory;
+import io.jes.serializer.TypeRegistry;
 import io.jes.snapshot.SnapshotReader;
+import io.jes.util.PropsReader;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import static io.jes.util.JdbcUtils.isCheckViolation;
+import static io.jes.util.JdbcUtils.isUniqueViolation;
 import static io.jes.util.JdbcUtils.unwrapJdbcType;
 import static java.lang.Long.MAX_VALUE;
+import static java.sql.ResultSet.CONCUR_READ_ONLY;
+import static java.sql.ResultSet.TYPE_FORWARD_ONLY;
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 import static java.util.Spliterator.ORDERED;
 import static java.util.stream.Collectors.toList;
@@ -37,27 +56,114 @@ import static java.util.stream.Collectors.toList;
  * @param <T> type of event serialization.
  */
 @Slf4j
-public class JdbcStoreProvider<T> implements StoreProvider, SnapshotReader, AutoCloseable {
+public class JdbcStoreProvider<T> implements StoreProvider, SnapshotReader, EnvelopeStore<T>, AutoCloseable {
 
+    private static final int MAX_UNVERSIONED_WRITE_ATTEMPTS = 3;
+    private static final String FETCH_SIZE_PROPERTY = "jes.jdbc.fetch-size";
+    private static final String DEFAULT_FETCH_SIZE = "500";
+    private static final int MAX_STREAMS_PER_QUERY = 500;
+
+    private final int fetchSize;
     private final DataSource dataSource;
+    private final DataSource readDataSource;
+    private final Class<T> serializationType;
     private final StoreDDLProducer ddlProducer;
+    @Nullable
+    private final PartitionDDLProducer partitions;
+    // number of the last attached partition, known to this provider
+    private volatile long lastPartition = -1;
     private final Serializer<Event, T> serializer;
+    private final TypeRegistry typeRegistry;
 
     public JdbcStoreProvider(@Nonnull DataSource dataSource, @Nonnull Class<T> serializationType,
                              @Nonnull SerializationOption... options) {
+        this(dataSource, dataSource, serializationType, options);
+    }
+
+    /**
+     * Constructs provider, that routes writes to the primary data source and reads to the read (replica) one. Reads,
+     * that need to observe own writes, can be routed back to the primary with {@link #primary()}.
+     * Note: the event store schema is created through the primary data source.
+     *
+     * @param writeDataSource   primary data source, used for writes.
+     * @param readDataSource    data source, used for reads.
+     * @param serializationType type of event serialization.
+     * @param options           serialization options.
+     * @throws BrokenStoreException if the event store can't be created.
+     */
+    public JdbcStoreProvider(@Nonnull DataSource writeDataSource, @Nonnull DataSource readDataSource,
+                             @Nonnull Class<T> serializationType, @Nonnull SerializationOption... options) {
+        this(writeDataSource, readDataSource, serializationType, DDLFactory::newDDLProducer, options);
+    }
+
+    /**
+     * Constructs provider of the store, partitioned by event id ranges of given size, regardless of
+     * {@literal jes.jdbc.partition-size} property (see {@link DDLFactory#newDDLProducer(Connection, long)}).
+     */
+    JdbcStoreProvider(@Nonnull DataSource dataSource, @Nonnull Class<T> serializationType, long partitionSize,
+                      @Nonnull SerializationOption... options) {
+        this(dataSource, dataSource, serializationType,
+                connection -> DDLFactory.newDDLProducer(connection, partitionSize), options);
+    }
+
+    private JdbcStoreProvider(@Nonnull DataSource writeDataSource, @Nonnull DataSource readDataSource,
+                              @Nonnull Class<T> serializationType,
+                              @Nonnull Function<Connection, StoreDDLProducer> ddlFactory,
+                              @Nonnull SerializationOption... options) {
         try {
-            this.dataSource = requireNonNull(dataSource);
+            this.dataSource = requireNonNull(writeDataSource, "Write DataSource must not be null");
+            this.readDataSource = requireNonNull(readDataSource, "Read DataSource must not be null");
+            this.serializationType = requireNonNull(serializationType);
             this.serializer = SerializerFactory.newEventSerializer(serializationType, options);
+            this.typeRegistry = TypeRegistry.typeRegistryOf(options);
+            this.fetchSize = Integer.parseInt(PropsReader.getPropety(FETCH_SIZE_PROPERTY, DEFAULT_FETCH_SIZE));
 
-            try (final Connection connection = dataSource.getConnection()) {
-                this.ddlProducer = DDLFactory.newDDLProducer(connection);
+            try (final Connection connection = writeDataSource.getConnection()) {
+                this.ddlProducer = ddlFactory.apply(connection);
+                this.partitions = ddlProducer instanceof PartitionDDLProducer
+                        ? (PartitionDDLProducer) ddlProducer
+                        : null;
+                if (partitions != null) {
+                    verifyStoreIsPartitioned(connection);
+                }
                 createEventStore(connection, ddlProducer.createStore(serializationType));
+                fillVersions(connection);
+                if (partitions != null) {
+                    createPartitions(connection);
+                }
             }
+        } catch (BrokenStoreException e) {
+            throw e;
         } catch (Exception e) {
             throw new BrokenStoreException(e);
         }
     }
 
+    private JdbcStoreProvider(@Nonnull JdbcStoreProvider<T> origin, @Nonnull DataSource readDataSource) {
+        this.fetchSize = origin.fetchSize;
+        this.dataSource = origin.dataSource;
+        this.readDataSource = readDataSource;
+        this.serializationType = origin.serializationType;
+        this.ddlProducer = origin.ddlProducer;
+        this.partitions = origin.partitions;
+        this.lastPartition = origin.lastPartition;
+        this.serializer = origin.serializer;
+        this.typeRegistry = origin.typeRegistry;
+    }
+
+    /**
+     * Returns view of this provider, that reads from the primary (write) data source, for reads, that need
+     * read-your-writes consistency, i.e. loading aggregates to handle commands with optimistic concurrency:
+     * {@code new AggregateStore(new JEventStore(provider.primary()))}.
+     * Note: the view shares data sources with this provider, closing the view closes them too.
+     *
+     * @return provider, that routes both reads and writes to the primary data source.
+     */
+    @Nonnull
+    public JdbcStoreProvider<T> primary() {
+        return dataSource == readDataSource ? this : new JdbcStoreProvider<>(this, dataSource);
+    }
+
     @SneakyThrows
     private void createEventStore(@Nonnull Connection connection, @Nonnull String ddl) {
         try (PreparedStatement statement = connection.prepareStatement(ddl)) {
@@ -68,29 +174,151 @@ public class JdbcStoreProvider<T> implements StoreProvider, SnapshotReader, Auto
         }
     }
 
+    /**
+     * One-off migration of events, written before the version column was introduced: it runs only if there are
+     * such events, so the store is not rewritten on every start.
+     */
+    private void fillVersions(@Nonnull Connection connection) throws SQLException {
+        final String query = ddlProducer.queryNotVersionedEvents();
+        final String fill = ddlProducer.fillVersions();
+        if (query == null || fill == null) {
+            return;
+        }
+        try (final Statement statement = connection.createStatement();
+             final ResultSet notVersioned = statement.executeQuery(query)) {
+            if (!notVersioned.next() || !notVersioned.getBoolean(1)) {
+                return;
+            }
+        }
+        connection.setAutoCommit(false);
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute(fill);
+            connection.commit();
+            log.info("Versions of events, written before stream versions were introduced, are filled");
+        } catch (SQLException e) {
+            rollbackQuietly(connection);
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
     @Override
     public Stream<Event> readFrom(long offset) {
         return readBy(ddlProducer.queryEvents(), offset);
     }
 
+    @Override
+    public Stream<Event> readFrom(long offset, int limit) {
+        return readBy(requireNonNull(ddlProducer.queryEventsWithLimit()), offset, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * {@implNote events are filtered by the indexed type column, so events of other types are neither transferred
+     * nor deserialized}.
+     */
+    @Override
+    public Stream<Event> readFrom(long offset, @Nonnull Set<Class<? extends Event>> types) {
+        requireNonNull(types, "Event types must not be null");
+        if (types.isEmpty()) {
+            return Stream.empty();
+        }
+        final List<Object> parameters = new ArrayList<>();
+        parameters.add(offset);
+        for (Class<? extends Event> type : types) {
+            parameters.add(typeRegistry.typeNameOf(type));
+        }
+        return readBy(requireNonNull(ddlProducer.queryEventsByTypes(types.size())), parameters.toArray())
+                // events without type name (written before the type column was introduced) are filtered here
+                .filter(event -> types.contains(event.getClass()));
+    }
+
+    @Override
+    public Stream<EventEnvelope<T>> readEnvelopesFrom(long offset) {
+        return query(ddlProducer.queryEvents(), this::toEnvelope, offset);
+    }
+
+    @Override
+    public Stream<EventEnvelope<T>> readEnvelopesFrom(long offset, int limit) {
+        return query(requireNonNull(ddlProducer.queryEventsWithLimit()), this::toEnvelope, offset, limit);
+    }
+
     @Override
     public Collection<Event> readBy(@Nonnull UUID uuid) {
-        try (final Stream<Event> stream = readBy(ddlProducer.queryEventsByUuid(), uuid)) {
+        try (final Stream<Event> stream = readStreamBy(uuid)) {
             return stream.collect(toList());
         }
     }
 
     @Override
     public Collection<Event> readBy(@Nonnull UUID uuid, long skip) {
-        try (final Stream<Event> stream = readBy(requireNonNull(ddlProducer.queryEventsByUuidWithSkip()), uuid, skip)) {
+        try (final Stream<Event> stream = readStreamBy(uuid, skip)) {
             return stream.collect(toList());
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * {@implNote streams are read with one query per {@link #MAX_STREAMS_PER_QUERY} streams}.
+     */
+    @Override
+    public Map<UUID, Collection<Event>> readBy(@Nonnull Map<UUID, Long> streams) {
+        requireNonNull(streams, "Event streams must not be null");
+        if (ddlProducer.queryEventsByUuidsWithSkip(1) == null) {
+            return SnapshotReader.super.readBy(streams);
+        }
+        final Map<UUID, Collection<Event>> events = new HashMap<>();
+        final List<Object> parameters = new ArrayList<>();
+        for (Map.Entry<UUID, Long> stream : streams.entrySet()) {
+            events.put(stream.getKey(), new ArrayList<>());
+            parameters.add(stream.getKey());
+            parameters.add(stream.getValue());
+            if (parameters.size() == MAX_STREAMS_PER_QUERY * 2) {
+                readStreams(parameters, events);
+                parameters.clear();
+            }
+        }
+        if (!parameters.isEmpty()) {
+            readStreams(parameters, events);
+        }
+        return events;
+    }
+
     private Stream<Event> readBy(@Nonnull String from, @Nonnull Object... values) {
+        return query(from, this::toEvent, values);
+    }
+
+    @Override
+    public Stream<Event> readStreamBy(@Nonnull UUID uuid) {
+        return readBy(ddlProducer.queryEventsByUuid(), uuid);
+    }
+
+    @Override
+    public Stream<Event> readStreamBy(@Nonnull UUID uuid, long skip) {
+        return readBy(requireNonNull(ddlProducer.queryEventsByUuidWithSkip()), uuid, skip);
+    }
+
+    private void readStreams(@Nonnull List<Object> parameters, @Nonnull Map<UUID, Collection<Event>> events) {
+        final String query = requireNonNull(ddlProducer.queryEventsByUuidsWithSkip(parameters.size() / 2));
+        try (final Stream<Event> stream = readBy(query, parameters.toArray())) {
+            stream.forEach(event -> events.get(event.uuid()).add(event));
+        }
+    }
+
+    /**
+     * Opens a server-side cursor for given query: autocommit is disabled for the connection (otherwise, i.e.
+     * PostgreSQL driver fetches all rows at once) and rows are fetched by {@link #fetchSize} chunks, so the memory
+     * footprint doesn't depend on the result size. The cursor (and transaction) is closed on {@link Stream#close()}.
+     */
+    private <R> Stream<R> query(@Nonnull String from, @Nonnull RowMapper<R> mapper, @Nonnull Object... values) {
+        Connection connection = null;
+        PreparedStatement statement = null;
         try {
-            final Connection connection = dataSource.getConnection();
-            final PreparedStatement statement = connection.prepareStatement(from);
+            connection = readDataSource.getConnection();
+            connection.setAutoCommit(false);
+            statement = connection.prepareStatement(from, TYPE_FORWARD_ONLY, CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
 
             int index = 1;
             for (Object parameter : values) {
@@ -99,75 +327,353 @@ public class JdbcStoreProvider<T> implements StoreProvider, SnapshotReader, Auto
 
             final ResultSet set = statement.executeQuery();
 
-            return resultSetToStream(connection, statement, set);
+            return resultSetToStream(connection, statement, set, mapper);
         } catch (Exception e) {
+            closeQuietly(statement);
+            rollbackQuietly(connection);
+            restoreAutoCommitAndClose(connection);
             throw new BrokenStoreException(e);
         }
     }
 
-    private Stream<Event> resultSetToStream(Connection connection, Statement statement, ResultSet set) {
-        return StreamSupport.stream(new AbstractSpliterator<Event>(MAX_VALUE, ORDERED) {
+    private <R> Stream<R> resultSetToStream(Connection connection, Statement statement, ResultSet set,
+                                            RowMapper<R> mapper) {
+        return StreamSupport.stream(new AbstractSpliterator<R>(MAX_VALUE, ORDERED) {
 
             @Override
-            public boolean tryAdvance(Consumer<? super Event> action) {
+            public boolean tryAdvance(Consumer<? super R> action) {
                 try {
                     if (!set.next()) {
                         return false;
                     }
-                    T data = unwrapJdbcType(set.getObject(ddlProducer.contentName()));
-                    action.accept(serializer.deserialize(data));
+                    action.accept(mapper.map(set));
                 } catch (Exception e) {
                     throw new BrokenStoreException(e);
                 }
                 return true;
             }
-        }, false).onClose(() -> closeQuietly(set, statement, connection));
+        }, false).onClose(() -> {
+            closeQuietly(set, statement);
+            // read-only transaction, nothing to commit
+            rollbackQuietly(connection);
+            restoreAutoCommitAndClose(connection);
+        });
+    }
+
+    private Event toEvent(ResultSet set) throws SQLException {
+        final T data = unwrapJdbcType(set.getObject(ddlProducer.contentName()));
+        return serializer.deserialize(data);
+    }
+
+    private EventEnvelope<T> toEnvelope(ResultSet set) throws SQLException {
+        final long id = set.getLong("id");
+        final UUID uuid = (UUID) set.getObject("uuid");
+        final long version = set.getLong("version");
+        final boolean versionless = set.wasNull();
+        final Timestamp created = set.getTimestamp("created");
+        return new EventEnvelope<>(
+                id,
+                uuid,
+                versionless ? null : version,
+                set.getString("type"),
+                created != null ? created.toInstant() : null,
+                unwrapJdbcType(set.getObject(ddlProducer.contentName())),
+                serializer::deserialize
+        );
     }
 
     @Override
     public void write(@Nonnull Event event) {
-        writeTo(event, ddlProducer.insertEvents());
+        write(new Event[]{event});
     }
 
-    private void writeTo(Event event, String where) {
-        try (final Connection connection = dataSource.getConnection();
-             final PreparedStatement statement = connection.prepareStatement(where)) {
+    /**
+     * {@inheritDoc}
+     * {@implNote all events are written in a single transaction as one batch. Each event gets the next version of
+     * it's stream, so the unique (uuid, version) constraint fails concurrent writes to the same stream}.
+     */
+    @Override
+    public void write(@Nonnull Event... events) {
+        final List<EventEnvelope<T>> envelopes = new ArrayList<>(events.length);
+        try {
+            // serialize once, out of the write transaction and it's retries
+            for (Event event : events) {
+                final long expectedVersion = event.expectedStreamVersion();
+                envelopes.add(new EventEnvelope<>(
+                        0,
+                        event.uuid(),
+                        expectedVersion != -1 ? expectedVersion : null,
+                        typeRegistry.typeNameOf(event.getClass()),
+                        null,
+                        serializer.serialize(event),
+                        serializer::deserialize
+                ));
+            }
+        } catch (Exception e) {
+            throw new BrokenStoreException(e);
+        }
+        write(envelopes, true);
+    }
 
-            final UUID uuid = event.uuid();
-            verifyStreamVersion(event, connection);
+    /**
+     * @param verifyVersions whether envelope versions are expected versions of their streams.
+     */
+    private void write(List<EventEnvelope<T>> envelopes, boolean verifyVersions) {
+        if (envelopes.isEmpty()) {
+            return;
+        }
+        // events without expected version can't conflict by design, so just try to append them once again
+        final boolean versioned = verifyVersions && hasVersions(envelopes);
+        final int attempts = versioned ? 1 : MAX_UNVERSIONED_WRITE_ATTEMPTS;
+        for (int attempt = 1; !tryWrite(envelopes, verifyVersions, attempt >= attempts); attempt++) {
+            log.debug("Concurrent modification detected, retrying write. Attempt: {}", attempt);
+        }
+    }
 
-            final T data = serializer.serialize(event);
+    /**
+     * {@inheritDoc}
+     * {@implNote envelopes are written in a single transaction as one batch, like {@link #write(Event...)} does}.
+     */
+    @Override
+    public void writeEnvelopes(@Nonnull Collection<EventEnvelope<T>> envelopes) {
+        write(new ArrayList<>(requireNonNull(envelopes, "Envelopes must not be null")), false);
+    }
 
-            statement.setObject(1, uuid);
-            statement.setObject(2, data);
+    @Nonnull
+    @Override
+    public String typeNameOf(@Nonnull Class<? extends Event> type) {
+        return typeRegistry.typeNameOf(type);
+    }
 
-            statement.executeUpdate();
+    @Nonnull
+    @Override
+    public Class<T> payloadType() {
+        return serializationType;
+    }
+
+    private static boolean hasVersions(List<? extends EventEnvelope<?>> envelopes) {
+        for (EventEnvelope<?> envelope : envelopes) {
+            if (envelope.version() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return stream versions of the streams, that events are expected to be appended to at certain versions.
+     */
+    private static Map<UUID, Long> versionedStreams(List<? extends EventEnvelope<?>> envelopes,
+                                                    Map<UUID, Long> streamVersions) {
+        final Map<UUID, Long> versioned = new HashMap<>();
+        for (EventEnvelope<?> envelope : envelopes) {
+            if (envelope.version() != null && streamVersions.containsKey(envelope.uuid())) {
+                versioned.put(envelope.uuid(), streamVersions.get(envelope.uuid()));
+            }
+        }
+        return versioned;
+    }
+
+    /**
+     * @return true if events were written, false if write failed due to concurrent modification and can be retried.
+     */
+    private boolean tryWrite(List<EventEnvelope<T>> envelopes, boolean verifyVersions, boolean lastAttempt) {
+        Connection connection = null;
+        Map<UUID, Long> streamVersions = emptyMap();
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+
+            lockStreams(envelopes, connection);
+            streamVersions = queryStreamVersions(envelopes, connection);
+            final Map<UUID, Long> nextVersions = new HashMap<>(streamVersions);
+            long lastId = -1;
+            try (final PreparedStatement statement = prepareInsert(connection)) {
+                for (EventEnvelope<T> envelope : envelopes) {
+                    final UUID uuid = envelope.uuid();
+                    statement.setObject(1, uuid);
+                    if (uuid != null) {
+                        final long version = nextVersions.merge(uuid, 1L, Long::sum) - 1;
+                        if (verifyVersions) {
+                            verifyStreamVersion(envelope, version);
+                        }
+                        statement.setLong(2, version);
+                    } else {
+                        statement.setNull(2, Types.BIGINT);
+                    }
+                    statement.setString(3, envelope.type());
+                    statement.setObject(4, envelope.payload());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                if (partitions != null) {
+                    lastId = lastGeneratedId(statement);
+                }
+            }
+            connection.commit();
+            if (partitions != null) {
+                createNextPartition(connection, lastId);
+            }
+            return true;
         } catch (BrokenStoreException | VersionMismatchException e) {
+            rollbackQuietly(connection);
             throw e;
         } catch (Exception e) {
+            rollbackQuietly(connection);
+            if (isMissingPartition(e, connection)) {
+                return false;
+            }
+            if (isUniqueViolation(e)) {
+                if (!lastAttempt) {
+                    return false;
+                }
+                if (!verifyVersions || !hasVersions(envelopes)) {
+                    // events without expected version have no version to mismatch
+                    throw new BrokenStoreException("Failed to append events in " + MAX_UNVERSIONED_WRITE_ATTEMPTS
+                            + " attempts due to concurrent appends to the same streams", e);
+                }
+                throw concurrentModificationOf(versionedStreams(envelopes, streamVersions), connection, e);
+            }
             throw new BrokenStoreException(e);
+        } finally {
+            restoreAutoCommitAndClose(connection);
+        }
+    }
+
+    private PreparedStatement prepareInsert(Connection connection) throws SQLException {
+        if (partitions == null) {
+            return connection.prepareStatement(ddlProducer.insertEvents());
         }
+        // ids of written events show, when writes reach the last attached partition
+        return connection.prepareStatement(ddlProducer.insertEvents(), new String[] {"id"});
+    }
+
+    private static long lastGeneratedId(PreparedStatement statement) throws SQLException {
+        long lastId = -1;
+        try (final ResultSet keys = statement.getGeneratedKeys()) {
+            while (keys.next()) {
+                lastId = Math.max(lastId, keys.getLong(1));
+            }
+        }
+        return lastId;
+    }
+
+    /**
+     * PostgreSQL reports the row, that doesn't fit any partition, as a check violation, so does it for violated check
+     * constraints. Check violation is considered a missing partition only if partitions were attached since the last
+     * known one, i.e. ids were generated past the attached partitions.
+     *
+     * @return true if write failed due to missing partition, which is attached now, so write can be retried.
+     */
+    private boolean isMissingPartition(Exception exception, Connection connection) {
+        if (partitions == null || !isCheckViolation(exception)) {
+            return false;
+        }
+        final long knownPartition = lastPartition;
+        try {
+            return createPartitions(connection) || lastPartition > knownPartition;
+        } catch (BrokenStoreException partitionException) {
+            exception.addSuppressed(partitionException);
+            return false;
+        }
+    }
+
+    /**
+     * Creates the next partition, as soon as writes reach the last attached one, so writes don't fail on missing
+     * partition, unless a single write spans the whole partition.
+     */
+    private void createNextPartition(Connection connection, long lastId) {
+        if (lastId / requireNonNull(partitions).partitionSize() < lastPartition) {
+            return;
+        }
+        try {
+            createPartitions(connection);
+        } catch (Exception e) {
+            log.warn("Failed to create the next event store partition in advance, it's created on demand", e);
+        }
+    }
+
+    /**
+     * Partitioned store can't enforce unique (uuid, version) constraint, so writes to the same stream are serialized
+     * with transaction-level locks. Locks are acquired in the same order to avoid deadlocks.
+     */
+    private void lockStreams(List<EventEnvelope<T>> envelopes, Connection connection) throws SQLException {
+        if (partitions == null) {
+            return;
+        }
+        final Set<Long> keys = new TreeSet<>();
+        for (EventEnvelope<T> envelope : envelopes) {
+            final UUID uuid = envelope.uuid();
+            if (uuid != null) {
+                keys.add(uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits());
+            }
+        }
+        try (final PreparedStatement statement = connection.prepareStatement(partitions.lockStream())) {
+            for (Long key : keys) {
+                statement.setLong(1, key);
+                statement.execute();
+            }
+        }
+    }
+
+    private void verifyStreamVersion(EventEnvelope<T> envelope, long actualVersion) {
+        final Long expectedVersion = envelope.version();
+        if (expectedVersion != null && expectedVersion != actualVersion) {
+            log.error("Version mismatch detected for {}", envelope);
+            throw new VersionMismatchException(expectedVersion, actualVersion);
+        }
+    }
+
+    /**
+     * Reads current versions of all streams given events belong to. Each stream version is queried only once.
+     */
+    private Map<UUID, Long> queryStreamVersions(List<EventEnvelope<T>> envelopes, Connection connection) {
+        final Map<UUID, Long> versions = new HashMap<>();
+        for (EventEnvelope<T> envelope : envelopes) {
+            final UUID uuid = envelope.uuid();
+            if (uuid != null && !versions.containsKey(uuid)) {
+                versions.put(uuid, queryStreamVersion(uuid, connection));
+            }
+        }
+        return versions;
     }
 
     @SneakyThrows
-    private void verifyStreamVersion(Event event, Connection connection) {
-        final UUID uuid = event.uuid();
-        final long expectedVersion = event.expectedStreamVersion();
-        if (uuid != null && expectedVersion != -1) {
-            try (PreparedStatement statement = connection.prepareStatement(ddlProducer.queryEventsStreamVersion())) {
-                statement.setObject(1, uuid);
-                try (final ResultSet query = statement.executeQuery()) {
-                    if (!query.next()) {
-                        throw new BrokenStoreException("Can't read uuid [" + uuid + "] version");
-                    }
-                    final long actualVersion = query.getLong(1);
-                    if (expectedVersion != actualVersion) {
-                        log.error("Version mismatch detected for {}", event);
-                        throw new VersionMismatchException(expectedVersion, actualVersion);
-                    }
+    private long queryStreamVersion(UUID uuid, Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement(ddlProducer.queryEventsStreamVersion())) {
+            statement.setObject(1, uuid);
+            try (final ResultSet query = statement.executeQuery()) {
+                if (!query.next()) {
+                    throw new BrokenStoreException("Can't read uuid [" + uuid + "] version");
+                }
+                return query.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Unique (uuid, version) violation means that some of the streams were concurrently modified. Tries to find out
+     * which one to report the actual version.
+     */
+    private RuntimeException concurrentModificationOf(Map<UUID, Long> expectedVersions, Connection connection,
+                                                      Exception cause) {
+        try {
+            for (Map.Entry<UUID, Long> entry : expectedVersions.entrySet()) {
+                final long actualVersion = queryStreamVersion(entry.getKey(), connection);
+                if (actualVersion != entry.getValue()) {
+                    log.error("Concurrent modification detected for event stream {}", entry.getKey());
+                    return new VersionMismatchException(entry.getValue(), actualVersion);
                 }
             }
+        } catch (Exception e) {
+            log.error("Failed to resolve actual event stream version", e);
         }
+        return new BrokenStoreException(cause);
+    }
+
+    @Override
+    public boolean isAtomicBatchWrite() {
+        return true;
     }
 
     @Override
@@ -183,6 +689,159 @@ public class JdbcStoreProvider<T> implements StoreProvider, SnapshotReader, Auto
         }
     }
 
+    /**
+     * Detaches partitions of partitioned {@literal Event Store}, that contain only events with ids not greater than
+     * given offset. Detached partitions become regular tables, so they can be archived and dropped then. Partition of
+     * the last written event is never detached.
+     * Partitions are detached concurrently, so readers and writers of the store are not blocked, but each detach waits
+     * for the running transactions, that use the store. Interrupted detach is completed by the next call.
+     * Note: events of detached partitions are not available for reading anymore, including reading event streams, so
+     * streams with events in detached partitions should be either closed or covered by snapshots.
+     *
+     * @param offset the offset, events up to which (inclusive) can be detached.
+     * @return names of detached partition tables, qualified with schema name.
+     * @throws IllegalStateException if event store is not partitioned.
+     */
+    public List<String> detachPartitionsBefore(long offset) {
+        if (partitions == null) {
+            throw new IllegalStateException("Event store is not partitioned");
+        }
+        final List<String> detached = new ArrayList<>();
+        try (final Connection connection = dataSource.getConnection()) {
+            // concurrent detach can't be executed inside of transaction block
+            connection.setAutoCommit(true);
+            final long size = partitions.partitionSize();
+            final long lastEventPartition = queryLastEventId(connection) / size;
+            for (long partition : queryPartitions(connection)) {
+                if ((partition + 1) * size - 1 > offset || partition >= lastEventPartition) {
+                    break;
+                }
+                detachPartition(connection, partition);
+                log.warn("Event store partition {} detached", partitions.partitionName(partition));
+                detached.add(partitions.partitionName(partition));
+            }
+        } catch (Exception e) {
+            throw new BrokenStoreException(e);
+        }
+        return detached;
+    }
+
+    private void detachPartition(@Nonnull Connection connection, long partition) throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute(requireNonNull(partitions).detachPartition(partition));
+        } catch (SQLException e) {
+            // concurrent detach of the partition could be interrupted before, then it's pending to be finalized
+            try (final Statement statement = connection.createStatement()) {
+                statement.execute(partitions.finalizeDetachPartition(partition));
+            } catch (SQLException finalizeException) {
+                e.addSuppressed(finalizeException);
+                throw e;
+            }
+        }
+    }
+
+    private void verifyStoreIsPartitioned(@Nonnull Connection connection) throws SQLException {
+        try (final Statement statement = connection.createStatement();
+             final ResultSet query = statement.executeQuery(requireNonNull(partitions).queryNotPartitionedStore())) {
+            if (query.next() && query.getBoolean(1)) {
+                throw new BrokenStoreException("Event store table exists, but it's not partitioned. Partitioning "
+                        + "(see 'jes.jdbc.partition-size' property) can't be applied to the existing store: "
+                        + "migrate it to partitioned table manually or disable partitioning");
+            }
+        }
+    }
+
+    /**
+     * Creates missing partitions up to the one, next to the partition of the last generated event id, so writes
+     * don't wait for partition creation until they reach the next partition. Partitions, attached concurrently by
+     * other store instances, are skipped.
+     * Note: connection is left in auto-commit mode.
+     *
+     * @return true if any partition was created.
+     */
+    private synchronized boolean createPartitions(@Nonnull Connection connection) {
+        requireNonNull(partitions);
+        try {
+            connection.setAutoCommit(true);
+            final long nextPartition = queryLastEventId(connection) / partitions.partitionSize() + 1;
+            final List<Long> attached = queryPartitions(connection);
+            final long from = attached.isEmpty() ? 0 : attached.get(attached.size() - 1) + 1;
+            boolean created = false;
+            for (long partition = from; partition <= nextPartition; partition++) {
+                created |= createPartition(connection, partition);
+            }
+            lastPartition = Math.max(nextPartition, from - 1);
+            return created;
+        } catch (Exception e) {
+            throw new BrokenStoreException(e);
+        }
+    }
+
+    private boolean createPartition(@Nonnull Connection connection, long partition) throws SQLException {
+        log.info("Creating event store partition {}", requireNonNull(partitions).partitionName(partition));
+        connection.setAutoCommit(false);
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute(partitions.createPartition(partition));
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            rollbackQuietly(connection);
+            connection.setAutoCommit(true);
+            if (queryPartitions(connection).contains(partition)) {
+                log.info("Event store partition {} is attached concurrently", partitions.partitionName(partition));
+                return false;
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private List<Long> queryPartitions(@Nonnull Connection connection) throws SQLException {
+        final List<Long> attached = new ArrayList<>();
+        try (final Statement statement = connection.createStatement();
+             final ResultSet query = statement.executeQuery(requireNonNull(partitions).queryPartitions())) {
+            while (query.next()) {
+                final long partition = query.getLong(1);
+                if (!query.wasNull()) {
+                    attached.add(partition);
+                }
+            }
+        }
+        return attached;
+    }
+
+    private long queryLastEventId(@Nonnull Connection connection) throws SQLException {
+        try (final Statement statement = connection.createStatement();
+             final ResultSet query = statement.executeQuery(requireNonNull(partitions).queryLastEventId())) {
+            if (!query.next()) {
+                throw new BrokenStoreException("Can't read last event id");
+            }
+            return query.getLong(1);
+        }
+    }
+
+    private void rollbackQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (Exception e) {
+                log.error("Exception during connection #rollback", e);
+            }
+        }
+    }
+
+    private void restoreAutoCommitAndClose(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(true);
+            } catch (Exception e) {
+                log.error("Exception during connection #setAutoCommit", e);
+            }
+            closeQuietly(connection);
+        }
+    }
+
     private void closeQuietly(AutoCloseable... resources) {
         for (AutoCloseable resource : resources) {
             if (resource != null) {
@@ -197,12 +856,25 @@ public class JdbcStoreProvider<T> implements StoreProvider, SnapshotReader, Auto
 
     @Override
     public void close() {
-        if (dataSource instanceof AutoCloseable) {
+        closeDataSource(dataSource);
+        if (readDataSource != dataSource) {
+            closeDataSource(readDataSource);
+        }
+    }
+
+    private void closeDataSource(DataSource source) {
+        if (source instanceof AutoCloseable) {
             try {
-                ((AutoCloseable) dataSource).close();
+                ((AutoCloseable) source).close();
             } catch (Exception e) {
                 log.error("Failed to close resource:", e);
             }
         }
     }
+
+    @FunctionalInterface
+    private interface RowMapper<R> {
+
+        R map(ResultSet set) throws SQLException;
+    }
 }
@@ -1,6 +1,11 @@
 package io.jes.provider;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -22,9 +27,11 @@ import io.jes.provider.jpa.StoreEntryFactory;
 import io.jes.serializer.SerializationOption;
 import io.jes.serializer.Serializer;
 import io.jes.serializer.SerializerFactory;
+import io.jes.serializer.TypeRegistry;
 import io.jes.snapshot.SnapshotReader;
 import lombok.extern.slf4j.Slf4j;
 
+import static io.jes.util.JdbcUtils.isUniqueViolation;
 import static java.lang.Integer.MAX_VALUE;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -40,102 +47,250 @@ import static java.util.Objects.requireNonNull;
 public class JpaStoreProvider<T> implements StoreProvider, SnapshotReader, AutoCloseable {
 
     private static final int FETCH_SIZE = 100;
+    private static final int MAX_UNVERSIONED_WRITE_ATTEMPTS = 3;
     private static final String READ_ONLY_HINT = "org.hibernate.readOnly";
     private static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
 
     private final Serializer<Event, T> serializer;
+    private final TypeRegistry typeRegistry;
     private final EntityManagerFactory entityManagerFactory;
 
     private final Class<? extends StoreEntry> entryType;
 
     private static final String QUERY_BY_UUID = "SELECT e FROM %s e WHERE e.uuid = :uuid ORDER BY id";
+    private static final String QUERY_BY_UUID_WITH_SKIP = "SELECT e FROM %s e WHERE e.uuid = :uuid "
+            + "AND e.version >= :version ORDER BY e.version";
     private static final String DELETE_BY_UUID = "DELETE FROM %s e WHERE e.uuid = :uuid";
-    private static final String QUERY_COUNT_BY_UUID = "SELECT COUNT(e) FROM %s e WHERE e.uuid = :uuid";
+    private static final String QUERY_VERSION_BY_UUID = "SELECT MAX(e.version) FROM %s e WHERE e.uuid = :uuid";
     private static final String QUERY_BY_OFFSET = "SELECT e FROM %s e WHERE e.id > :id ORDER BY id";
+    private static final String QUERY_BY_OFFSET_AND_TYPES = "SELECT e FROM %s e WHERE e.id > :id "
+            + "AND (e.type IS NULL OR e.type IN :types) ORDER BY id";
 
     public JpaStoreProvider(@Nonnull EntityManagerFactory entityManagerFactory, @Nonnull Class<T> serializationType,
                             @Nonnull SerializationOption... options) {
 
         this.entityManagerFactory = requireNonNull(entityManagerFactory, "EntityManagerFactory must not be null");
         this.serializer = SerializerFactory.newEventSerializer(serializationType, options);
+        this.typeRegistry = TypeRegistry.typeRegistryOf(options);
         this.entryType = StoreEntryFactory.entryTypeOf(serializationType);
     }
 
     @Override
     public Stream<Event> readFrom(long offset) {
+        return readFrom(offset, MAX_VALUE);
+    }
+
+    @Override
+    public Stream<Event> readFrom(long offset, int limit) {
         return doInTransactionAndKeepAlive((entityManager, transaction) -> {
             final TypedQuery<? extends StoreEntry> query = entityManager.createQuery(
                     format(QUERY_BY_OFFSET, entryType.getName()), entryType
             );
 
             query.setParameter("id", offset);
-            query.setHint(READ_ONLY_HINT, true);
-            query.setHint(FETCH_SIZE_HINT, FETCH_SIZE);
-
-            return query.getResultStream()
-                    .map(storeEntry -> serializer.deserialize(storeEntry.getData()))
-                    .onClose(() -> {
-                        try {
-                            transaction.commit();
-                            entityManager.close();
-                        } catch (Exception e) {
-                            if (transaction.isActive()) {
-                                transaction.rollback();
-                            }
-                            throw new BrokenStoreException(e);
-                        }
-                    });
+            query.setMaxResults(limit);
+            return toEventStream(query, entityManager, transaction);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * {@implNote events are filtered by the indexed type column, so events of other types are neither transferred
+     * nor deserialized}.
+     */
+    @Override
+    public Stream<Event> readFrom(long offset, @Nonnull Set<Class<? extends Event>> types) {
+        requireNonNull(types, "Event types must not be null");
+        if (types.isEmpty()) {
+            return Stream.empty();
+        }
+        return doInTransactionAndKeepAlive((entityManager, transaction) -> {
+            final TypedQuery<? extends StoreEntry> query = entityManager.createQuery(
+                    format(QUERY_BY_OFFSET_AND_TYPES, entryType.getName()), entryType
+            );
+
+            query.setParameter("id", offset);
+            query.setParameter("types", types.stream().map(typeRegistry::typeNameOf).collect(Collectors.toList()));
+            return toEventStream(query, entityManager, transaction)
+                    // events without type name (written before the type column was introduced) are filtered here
+                    .filter(event -> types.contains(event.getClass()));
         });
     }
 
+    private Stream<Event> toEventStream(@Nonnull TypedQuery<? extends StoreEntry> query,
+                                        @Nonnull EntityManager entityManager, @Nonnull EntityTransaction transaction) {
+        query.setHint(READ_ONLY_HINT, true);
+        query.setHint(FETCH_SIZE_HINT, FETCH_SIZE);
+
+        return query.getResultStream()
+                .map(storeEntry -> serializer.deserialize(storeEntry.getData()))
+                .onClose(() -> {
+                    try {
+                        transaction.commit();
+                        entityManager.close();
+                    } catch (Exception e) {
+                        if (transaction.isActive()) {
+                            transaction.rollback();
+                        }
+                        throw new BrokenStoreException(e);
+                    }
+                });
+    }
+
+    /**
+     * {@inheritDoc}
+     * {@implNote events are read in order of ids, so streams, written before the version column was introduced, are
+     * read in full}.
+     */
     @Override
     public Collection<Event> readBy(@Nonnull UUID uuid) {
-        return readBy(uuid, 0);
+        return doInTransaction(entityManager -> {
+            final TypedQuery<? extends StoreEntry> query = entityManager.createQuery(
+                    format(QUERY_BY_UUID, entryType.getName()), entryType
+            );
+
+            query.setParameter("uuid", uuid);
+            return readBy(query);
+        });
     }
 
+    /**
+     * {@inheritDoc}
+     * {@implNote versions of events, written before the version column was introduced, are not filled, so such
+     * streams can be read with skip only after manual migration (see {@link StoreEntry})}.
+     */
     @Override
     public Collection<Event> readBy(@Nonnull UUID uuid, long skip) {
+        if (skip == 0) {
+            return readBy(uuid);
+        }
         return doInTransaction(entityManager -> {
             final TypedQuery<? extends StoreEntry> query = entityManager.createQuery(
-                    format(QUERY_BY_UUID, entryType.getName()), entryType
+                    format(QUERY_BY_UUID_WITH_SKIP, entryType.getName()), entryType
             );
 
+            // event versions are sequential within the stream, so skipped events are not read at all
             query.setParameter("uuid", uuid);
-            query.setMaxResults(MAX_VALUE);
-            query.setFirstResult((int) skip);
-            query.setHint(READ_ONLY_HINT, true);
-            query.setHint(FETCH_SIZE_HINT, FETCH_SIZE);
-            return query.getResultStream()
-                    .map(storeEntry -> serializer.deserialize(storeEntry.getData()))
-                    .collect(Collectors.toList());
+            query.setParameter("version", skip);
+            return readBy(query);
         });
     }
 
+    private List<Event> readBy(@Nonnull TypedQuery<? extends StoreEntry> query) {
+        query.setHint(READ_ONLY_HINT, true);
+        query.setHint(FETCH_SIZE_HINT, FETCH_SIZE);
+        return query.getResultStream()
+                .map(storeEntry -> serializer.deserialize(storeEntry.getData()))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void write(@Nonnull Event event) {
-        final UUID uuid = event.uuid();
-        final long expectedVersion = event.expectedStreamVersion();
-        if (uuid != null && expectedVersion != -1) {
+        write(new Event[]{event});
+    }
 
-            final long actualVersion = doInTransaction(entityManager -> {
-                final TypedQuery<Long> versionQuery = entityManager.createQuery(
-                        format(QUERY_COUNT_BY_UUID, entryType.getName()), Long.class
-                );
-                versionQuery.setParameter("uuid", uuid);
-                versionQuery.setHint(READ_ONLY_HINT, true);
+    /**
+     * {@inheritDoc}
+     * {@implNote all events are written in a single transaction. Each event gets the next version of it's stream, so
+     * the unique (uuid, version) constraint fails concurrent writes to the same stream. Events without expected
+     * version can't conflict by design, so their writes are retried}.
+     */
+    @Override
+    public void write(@Nonnull Event... events) {
+        final boolean versioned = hasExpectedVersions(events);
+        final int attempts = versioned ? 1 : MAX_UNVERSIONED_WRITE_ATTEMPTS;
+        for (int attempt = 1; !tryWrite(events, attempt >= attempts); attempt++) {
+            log.debug("Concurrent modification detected, retrying write. Attempt: {}", attempt);
+        }
+    }
 
-                return versionQuery.getSingleResult();
+    private static boolean hasExpectedVersions(@Nonnull Event... events) {
+        for (Event event : events) {
+            if (event.expectedStreamVersion() != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if events were written, false if write failed due to concurrent modification and can be retried.
+     */
+    private boolean tryWrite(@Nonnull Event[] events, boolean lastAttempt) {
+        final Map<UUID, Long> streamVersions = new HashMap<>();
+        // streams, that events are expected to be appended to at certain versions
+        final Set<UUID> versionedStreams = new HashSet<>();
+        try {
+            doInTransaction(entityManager -> {
+                final Map<UUID, Long> nextVersions = new HashMap<>();
+                for (Event event : events) {
+                    final UUID uuid = event.uuid();
+                    Long version = null;
+                    if (uuid != null) {
+                        version = nextVersions.computeIfAbsent(uuid, key -> queryStreamVersion(entityManager, key));
+                        streamVersions.putIfAbsent(uuid, version);
+                        nextVersions.put(uuid, version + 1);
+                        final long expectedVersion = event.expectedStreamVersion();
+                        if (expectedVersion != -1) {
+                            versionedStreams.add(uuid);
+                            if (expectedVersion != version) {
+                                throw new VersionMismatchException(expectedVersion, version);
+                            }
+                        }
+                    }
+                    final String type = typeRegistry.typeNameOf(event.getClass());
+                    entityManager.persist(StoreEntryFactory.newEntry(uuid, version, type, serializer.serialize(event)));
+                }
+                entityManager.flush();
             });
+            return true;
+        } catch (BrokenStoreException e) {
+            if (!isUniqueViolation(e)) {
+                throw e;
+            }
+            if (!lastAttempt) {
+                return false;
+            }
+            if (versionedStreams.isEmpty()) {
+                // events without expected version have no version to mismatch
+                throw new BrokenStoreException("Failed to append events in " + MAX_UNVERSIONED_WRITE_ATTEMPTS
+                        + " attempts due to concurrent appends to the same streams", e);
+            }
+            streamVersions.keySet().retainAll(versionedStreams);
+            throw concurrentModificationOf(streamVersions, e);
+        }
+    }
 
-            if (expectedVersion != actualVersion) {
-                throw new VersionMismatchException(expectedVersion, actualVersion);
+    /**
+     * Unique (uuid, version) violation means that some of the streams were concurrently modified. Tries to find out
+     * which one to report the actual version.
+     */
+    private RuntimeException concurrentModificationOf(@Nonnull Map<UUID, Long> expectedVersions,
+                                                      @Nonnull BrokenStoreException cause) {
+        for (Map.Entry<UUID, Long> entry : expectedVersions.entrySet()) {
+            final long actualVersion = doInTransaction(entityManager -> {
+                return queryStreamVersion(entityManager, entry.getKey());
+            });
+            if (actualVersion != entry.getValue()) {
+                log.error("Concurrent modification detected for event stream {}", entry.getKey());
+                return new VersionMismatchException(entry.getValue(), actualVersion);
             }
         }
+        return cause;
+    }
+
+    private long queryStreamVersion(@Nonnull EntityManager entityManager, @Nonnull UUID uuid) {
+        final TypedQuery<Long> versionQuery = entityManager.createQuery(
+                format(QUERY_VERSION_BY_UUID, entryType.getName()), Long.class
+        );
+        versionQuery.setParameter("uuid", uuid);
+        final Long lastVersion = versionQuery.getSingleResult();
+        return lastVersion == null ? 0 : lastVersion + 1;
+    }
 
-        final T data = serializer.serialize(event);
-        final StoreEntry entry = StoreEntryFactory.newEntry(uuid, data);
-        final Consumer<EntityManager> consumer = entityManager -> entityManager.persist(entry);
-        doInTransaction(consumer);
+    @Override
+    public boolean isAtomicBatchWrite() {
+        return true;
     }
 
     @Override
@@ -159,6 +314,9 @@ public class JpaStoreProvider<T> implements StoreProvider, SnapshotReader, AutoC
             final R result = action.apply(entityManager);
             transaction.commit();
             return result;
+        } catch (VersionMismatchException e) {
+            transaction.rollback();
+            throw e;
         } catch (Exception e) {
             transaction.rollback();
             throw new BrokenStoreException(e);
@@ -174,6 +332,9 @@ public class JpaStoreProvider<T> implements StoreProvider, SnapshotReader, AutoC
             transaction.begin();
             action.accept(entityManager);
             transaction.commit();
+        } catch (VersionMismatchException e) {
+            transaction.rollback();
+            throw e;
         } catch (Exception e) {
             transaction.rollback();
             throw new BrokenStoreException(e);
@@ -0,0 +1,466 @@
+package io.jes.provider;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Spliterators.AbstractSpliterator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import io.jes.Event;
+import io.jes.ex.BrokenStoreException;
+import io.jes.ex.VersionMismatchException;
+import io.jes.serializer.Serializer;
+import io.jes.serializer.SerializerFactory;
+import io.jes.snapshot.SnapshotReader;
+import lombok.extern.slf4j.Slf4j;
+
+import static java.lang.Long.MAX_VALUE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+import static java.util.Spliterator.ORDERED;
+
+/**
+ * {@link StoreProvider} implementation, that stores events in the append-only journal of rolling memory-mapped
+ * segment files. Intended for single node deployments without a database: appends are plain memory writes and
+ * sequential reads go at the disk (page cache) bandwidth.
+ *
+ * <p>Each record of the journal is length-prefixed and protected with CRC32 checksum. Events are serialized with
+ * binary {@link Serializer}. Journal indexes (sparse offset index and uuid to record locations index) are kept in
+ * memory and rebuilt on startup. Torn record at the end of the journal (i.e. after the process crash) is discarded.
+ *
+ * <p>Writes are serialized. Records are not forced to the disk on each write, the journal is flushed on
+ * {@link #close()}, so the durability of the last writes on OS crash depends on OS page cache flushing.
+ *
+ * {@implNote deleted events are only marked as deleted in the journal, their space is not reclaimed}.
+ */
+@Slf4j
+public class MappedFileStoreProvider implements StoreProvider, SnapshotReader, AutoCloseable {
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final String SEGMENT_FORMAT = "%020d.segment";
+    private static final int SPARSE_INDEX_INTERVAL = 256;
+
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;
+
+    // length (4), type (1), id (8), uuid (16), version (8), data (length), checksum (4)
+    private static final int TYPE_OFFSET = 4;
+    private static final int ID_OFFSET = 5;
+    private static final int UUID_OFFSET = 13;
+    private static final int VERSION_OFFSET = 29;
+    private static final int HEADER_SIZE = 37;
+    private static final int CHECKSUM_SIZE = 4;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Serializer<Event, byte[]> serializer;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final NavigableMap<Long, Long> sparseIndex = new ConcurrentSkipListMap<>();
+    private final Map<UUID, LocationIndex> streams = new ConcurrentHashMap<>();
+
+    private int writePosition;
+    private long lastId;
+    // location right after the last complete record, readers never read beyond it
+    private volatile long publishedEnd;
+
+    /**
+     * Opens (or creates) journal in the given directory with default segment size of 64 MB.
+     *
+     * @param directory directory of the journal segment files.
+     * @throws BrokenStoreException if journal can't be opened or is corrupted.
+     */
+    public MappedFileStoreProvider(@Nonnull Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens (or creates) journal in the given directory.
+     *
+     * @param directory   directory of the journal segment files.
+     * @param segmentSize size of one segment file in bytes, limits the max size of serialized event.
+     * @throws BrokenStoreException     if journal can't be opened or is corrupted.
+     * @throws IllegalArgumentException if segment size is not greater than record overhead.
+     */
+    public MappedFileStoreProvider(@Nonnull Path directory, int segmentSize) {
+        if (segmentSize <= HEADER_SIZE + CHECKSUM_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSize);
+        }
+        this.directory = requireNonNull(directory, "Journal directory must not be null");
+        this.segmentSize = segmentSize;
+        this.serializer = SerializerFactory.newEventSerializer(byte[].class);
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            closeSegments();
+            throw new BrokenStoreException(e);
+        }
+    }
+
+    private void recover() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(path -> path.getFileName().toString().endsWith(".segment")).sorted().forEach(files::add);
+        }
+        if (files.isEmpty()) {
+            segments.add(openSegment(0));
+            return;
+        }
+        for (int i = 0; i < files.size(); i++) {
+            final Segment segment = openSegment(i);
+            segments.add(segment);
+            writePosition = recover(segment, i, i == files.size() - 1);
+        }
+        publishedEnd = location(segments.size() - 1, writePosition);
+        log.info("Journal {} recovered: {} segments, last event id {}", directory, segments.size(), lastId);
+    }
+
+    /**
+     * Scans all records of the segment and rebuilds indexes.
+     *
+     * @return position after the last valid record of the segment.
+     */
+    private int recover(@Nonnull Segment segment, int segmentIndex, boolean last) {
+        int position = 0;
+        while (position + HEADER_SIZE + CHECKSUM_SIZE <= segmentSize) {
+            final ByteBuffer buffer = segment.buffer;
+            final int length = buffer.getInt(position);
+            final int recordSize = HEADER_SIZE + length + CHECKSUM_SIZE;
+            if (length <= 0 || position + recordSize > segmentSize) {
+                break;
+            }
+            if (checksum(buffer, position, length) != buffer.getInt(position + HEADER_SIZE + length)) {
+                if (!last) {
+                    throw new BrokenStoreException("Corrupted record in segment " + segmentIndex + " at " + position);
+                }
+                log.warn("Torn record in segment {} at {} discarded", segmentIndex, position);
+                zero(segment, position, segmentSize);
+                break;
+            }
+            final long id = buffer.getLong(position + ID_OFFSET);
+            final long location = location(segmentIndex, position);
+            if (id % SPARSE_INDEX_INTERVAL == 1) {
+                sparseIndex.put(id, location);
+            }
+            if (buffer.get(position + TYPE_OFFSET) == LIVE && buffer.getLong(position + VERSION_OFFSET) != -1) {
+                final UUID uuid = new UUID(buffer.getLong(position + UUID_OFFSET),
+                        buffer.getLong(position + UUID_OFFSET + 8));
+                streams.computeIfAbsent(uuid, key -> new LocationIndex()).add(location);
+            }
+            lastId = id;
+            position += recordSize;
+        }
+        return position;
+    }
+
+    /**
+     * {@inheritDoc}
+     * {@implNote records are read only up to the end of the journal, published by the last completed write: the
+     * volatile read of the published end makes these records fully visible, while records, that are being written
+     * concurrently, are never read}.
+     */
+    @Override
+    public Stream<Event> readFrom(long offset) {
+        final long end = publishedEnd;
+        final Map.Entry<Long, Long> floor = sparseIndex.floorEntry(offset + 1);
+        final long start = floor != null ? floor.getValue() : location(0, 0);
+        return StreamSupport.stream(new AbstractSpliterator<Event>(MAX_VALUE, ORDERED) {
+
+            private int segmentIndex = segmentOf(start);
+            private int position = positionOf(start);
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Event> action) {
+                while (location(segmentIndex, position) < end) {
+                    final ByteBuffer buffer = segments.get(segmentIndex).buffer;
+                    final int length = position + HEADER_SIZE + CHECKSUM_SIZE <= segmentSize
+                            ? buffer.getInt(position) : 0;
+                    if (length <= 0) {
+                        segmentIndex++;
+                        position = 0;
+                        continue;
+                    }
+                    final long id = buffer.getLong(position + ID_OFFSET);
+                    final int current = position;
+                    position += HEADER_SIZE + length + CHECKSUM_SIZE;
+                    if (id > offset && buffer.get(current + TYPE_OFFSET) == LIVE) {
+                        action.accept(deserialize(buffer, current, length));
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }, false);
+    }
+
+    @Override
+    public Collection<Event> readBy(@Nonnull UUID uuid) {
+        return readBy(uuid, 0);
+    }
+
+    @Override
+    public Collection<Event> readBy(@Nonnull UUID uuid, long skip) {
+        try (final Stream<Event> stream = readStreamBy(uuid, skip)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public Stream<Event> readStreamBy(@Nonnull UUID uuid) {
+        return readStreamBy(uuid, 0);
+    }
+
+    @Override
+    public Stream<Event> readStreamBy(@Nonnull UUID uuid, long skip) {
+        final LocationIndex index = streams.get(requireNonNull(uuid, "Event stream uuid must not be null"));
+        if (index == null) {
+            return Stream.empty();
+        }
+        final long[] locations = index.locations();
+        return Arrays.stream(locations, (int) Math.min(skip, locations.length), locations.length)
+                .mapToObj(location -> {
+                    final ByteBuffer buffer = segments.get(segmentOf(location)).buffer;
+                    final int position = positionOf(location);
+                    // stream could be deleted concurrently
+                    if (buffer.get(position + TYPE_OFFSET) != LIVE) {
+                        return null;
+                    }
+                    return deserialize(buffer, position, buffer.getInt(position));
+                })
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public void write(@Nonnull Event event) {
+        write(new Event[] {event});
+    }
+
+    /**
+     * {@inheritDoc}
+     * {@implNote either all events are written, or none if any version check fails}.
+     */
+    @Override
+    public synchronized void write(@Nonnull Event... events) {
+        final Map<UUID, Long> nextVersions = new HashMap<>();
+        final byte[][] data = new byte[events.length][];
+        for (int i = 0; i < events.length; i++) {
+            final Event event = events[i];
+            final UUID uuid = event.uuid();
+            if (uuid != null) {
+                final LocationIndex index = streams.get(uuid);
+                final long actualVersion = nextVersions.getOrDefault(uuid, index != null ? index.version() : 0);
+                final long expectedVersion = event.expectedStreamVersion();
+                if (expectedVersion != -1 && actualVersion != expectedVersion) {
+                    log.error("Version mismatch detected for {}", event);
+                    throw new VersionMismatchException(expectedVersion, actualVersion);
+                }
+                nextVersions.put(uuid, actualVersion + 1);
+            }
+            data[i] = serializer.serialize(event);
+            if (HEADER_SIZE + data[i].length + CHECKSUM_SIZE > segmentSize) {
+                throw new BrokenStoreException("Event " + event + " doesn't fit into journal segment");
+            }
+        }
+        for (int i = 0; i < events.length; i++) {
+            append(events[i].uuid(), data[i]);
+        }
+        // publish appended events
+        publishedEnd = location(segments.size() - 1, writePosition);
+    }
+
+    private void append(@Nullable UUID uuid, @Nonnull byte[] data) {
+        final int recordSize = HEADER_SIZE + data.length + CHECKSUM_SIZE;
+        if (writePosition + recordSize > segmentSize) {
+            try {
+                segments.add(openSegment(segments.size()));
+            } catch (IOException e) {
+                throw new BrokenStoreException(e);
+            }
+            writePosition = 0;
+        }
+        final int segmentIndex = segments.size() - 1;
+        final ByteBuffer buffer = segments.get(segmentIndex).buffer.duplicate();
+        final long id = lastId + 1;
+        final LocationIndex index = uuid != null ? streams.computeIfAbsent(uuid, key -> new LocationIndex()) : null;
+
+        buffer.position(writePosition + TYPE_OFFSET);
+        buffer.put(LIVE);
+        buffer.putLong(id);
+        buffer.putLong(uuid != null ? uuid.getMostSignificantBits() : 0);
+        buffer.putLong(uuid != null ? uuid.getLeastSignificantBits() : 0);
+        buffer.putLong(index != null ? index.version() : -1);
+        buffer.put(data);
+        buffer.putInt(writePosition + HEADER_SIZE + data.length, checksum(data, buffer, writePosition));
+        // length is written last, so the record is visible to recovery only when it's complete
+        buffer.putInt(writePosition, data.length);
+
+        final long location = location(segmentIndex, writePosition);
+        if (index != null) {
+            index.add(location);
+        }
+        if (id % SPARSE_INDEX_INTERVAL == 1) {
+            sparseIndex.put(id, location);
+        }
+        lastId = id;
+        writePosition += recordSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * {@implNote events are marked as deleted in place, journal space is not reclaimed}.
+     */
+    @Override
+    public synchronized void deleteBy(@Nonnull UUID uuid) {
+        final LocationIndex index = streams.remove(uuid);
+        if (index == null) {
+            return;
+        }
+        for (long location : index.locations()) {
+            segments.get(segmentOf(location)).buffer.put(positionOf(location) + TYPE_OFFSET, DELETED);
+        }
+        log.warn("{} events of stream {} successfully removed", index.version(), uuid);
+    }
+
+    private Event deserialize(@Nonnull ByteBuffer buffer, int position, int length) {
+        final byte[] data = new byte[length];
+        final ByteBuffer source = buffer.duplicate();
+        source.position(position + HEADER_SIZE);
+        source.get(data);
+        return serializer.deserialize(data);
+    }
+
+    /**
+     * Checksum covers the whole record except the type, which is changed in place on delete.
+     */
+    private static int checksum(@Nonnull ByteBuffer buffer, int position, int length) {
+        final byte[] record = new byte[HEADER_SIZE - ID_OFFSET + length];
+        final ByteBuffer source = buffer.duplicate();
+        source.position(position + ID_OFFSET);
+        source.get(record);
+        final CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+
+    private static int checksum(@Nonnull byte[] data, @Nonnull ByteBuffer buffer, int position) {
+        final byte[] header = new byte[HEADER_SIZE - ID_OFFSET];
+        final ByteBuffer source = buffer.duplicate();
+        source.position(position + ID_OFFSET);
+        source.get(header);
+        final CRC32 crc = new CRC32();
+        crc.update(header);
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static void zero(@Nonnull Segment segment, int from, int to) {
+        for (int i = from; i < to; i++) {
+            segment.buffer.put(i, (byte) 0);
+        }
+    }
+
+    private Segment openSegment(int index) throws IOException {
+        final Path path = directory.resolve(String.format(SEGMENT_FORMAT, index));
+        final FileChannel channel = FileChannel.open(path, CREATE, READ, WRITE);
+        try {
+            return new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static long location(int segmentIndex, int position) {
+        return ((long) segmentIndex << 32) | position;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int positionOf(long location) {
+        return (int) location;
+    }
+
+    /**
+     * Flushes all segments to the disk and closes them.
+     */
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+        closeSegments();
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (Exception e) {
+                log.error("Failed to close journal segment", e);
+            }
+        }
+    }
+
+    private static final class Segment {
+
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(@Nonnull FileChannel channel, @Nonnull MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Journal locations of the stream events. Size of the index is the current stream version.
+     */
+    private static final class LocationIndex {
+
+        private static final int INITIAL_CAPACITY = 8;
+
+        private long[] locations = new long[INITIAL_CAPACITY];
+        private int size;
+
+        synchronized void add(long location) {
+            if (size == locations.length) {
+                locations = Arrays.copyOf(locations, size << 1);
+            }
+            locations[size++] = location;
+        }
+
+        synchronized long[] locations() {
+            return Arrays.copyOf(locations, size);
+        }
+
+        synchronized long version() {
+            return size;
+        }
+    }
+}
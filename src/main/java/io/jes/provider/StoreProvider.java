@@ -1,12 +1,15 @@
 package io.jes.provider;
 
 import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 
 import io.jes.Event;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Basic {@literal EventStore} component, that provides protocol/tool-specific low level operations.
  */
@@ -20,6 +23,30 @@ public interface StoreProvider {
      */
     Stream<Event> readFrom(long offset);
 
+    /**
+     * see {@link io.jes.JEventStore#readFrom(long, int)}.
+     *
+     * @param offset the offset to read from.
+     * @param limit  max count of events to read.
+     * @return {@link Stream} of at most {@code limit} events stored in that {@literal EventStore}.
+     */
+    default Stream<Event> readFrom(long offset, int limit) {
+        return readFrom(offset).limit(limit);
+    }
+
+    /**
+     * see {@link io.jes.JEventStore#readFrom(long, Set)}.
+     * Note: default implementation reads all events from offset and filters them by type.
+     *
+     * @param offset the offset to read from.
+     * @param types  types of events to read.
+     * @return {@link Stream} of events of given types stored in that {@literal EventStore}.
+     */
+    default Stream<Event> readFrom(long offset, @Nonnull Set<Class<? extends Event>> types) {
+        requireNonNull(types, "Event types must not be null");
+        return readFrom(offset).filter(event -> types.contains(event.getClass()));
+    }
+
     /**
      * see {@link io.jes.JEventStore#readBy(UUID)}.
      *
@@ -28,6 +55,20 @@ public interface StoreProvider {
      */
     Collection<Event> readBy(@Nonnull UUID uuid);
 
+    /**
+     * Lazy alternative of {@link #readBy(UUID)}: returns events of the stream one by one, without collecting the
+     * whole stream in memory. Note: default implementation reads the whole stream via {@link #readBy(UUID)}.
+     *
+     * <p>A Stream potentially wraps underlying data store-specific resources and must, therefore, be closed after
+     * usage.
+     *
+     * @param uuid identifier of event uuid to read.
+     * @return {@link Stream} of events stored in that {@literal EventStore}, grouped by {@literal uuid}.
+     */
+    default Stream<Event> readStreamBy(@Nonnull UUID uuid) {
+        return readBy(uuid).stream();
+    }
+
     /**
      * see {@link io.jes.JEventStore#write(Event)}.
      *
@@ -37,6 +78,7 @@ public interface StoreProvider {
 
     /**
      * see {@link io.jes.JEventStore#write(Event...)}.
+     * Implementations should write given events atomically. Note: default implementation writes events one by one.
      *
      * @param events is an events to store.
      */
@@ -46,6 +88,16 @@ public interface StoreProvider {
         }
     }
 
+    /**
+     * Note: writes of different callers are coalesced into one {@link #write(Event...)} only if it's atomic, otherwise
+     * events, written before the failure of the batch, would be written again by the retries of the callers.
+     *
+     * @return true if {@link #write(Event...)} writes either all given events, or none of them.
+     */
+    default boolean isAtomicBatchWrite() {
+        return false;
+    }
+
     /**
      * see {@link io.jes.JEventStore#deleteBy(UUID)}.
      *
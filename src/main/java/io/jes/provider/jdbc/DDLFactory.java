@@ -4,6 +4,7 @@ import java.sql.Connection;
 import javax.annotation.Nonnull;
 
 import io.jes.util.JdbcUtils;
+import io.jes.util.PropsReader;
 
 import static java.lang.String.format;
 
@@ -16,17 +17,38 @@ public class DDLFactory {
     }
 
     private static final String UNSUPPORTED_TYPE = "%s for %s type not supported";
+    private static final String PARTITION_SIZE_PROPERTY = "jes.jdbc.partition-size";
+    // event store is not partitioned by default
+    private static final String DEFAULT_PARTITION_SIZE = "0";
 
     /**
      * Constructs new DDL producer based on DB vendor name and provided schema.
+     * Note: PostgreSQL event store is partitioned by event id ranges, if {@literal jes.jdbc.partition-size} property
+     * is greater than 0 (see {@link PartitionDDLProducer}).
      *
      * @param connection is an active connection to underlying database.
      * @return {@link StoreDDLProducer} for event store.
      */
     public static StoreDDLProducer newDDLProducer(@Nonnull Connection connection) {
+        return newDDLProducer(connection, Long.parseLong(PropsReader.getPropety(PARTITION_SIZE_PROPERTY,
+                DEFAULT_PARTITION_SIZE)));
+    }
+
+    /**
+     * Constructs new DDL producer based on DB vendor name and provided schema.
+     *
+     * @param connection    is an active connection to underlying database.
+     * @param partitionSize size of PostgreSQL event store partitions, the store is not partitioned if it's not
+     *                      greater than 0. Ignored by other databases.
+     * @return {@link StoreDDLProducer} for event store.
+     */
+    public static StoreDDLProducer newDDLProducer(@Nonnull Connection connection, long partitionSize) {
         final String databaseName = JdbcUtils.getDatabaseName(connection);
         final String schemaName = JdbcUtils.getSchemaName(connection);
         if ("PostgreSQL".equals(databaseName)) {
+            if (partitionSize > 0) {
+                return new PostgresPartitionedDDL(schemaName, partitionSize);
+            }
             return new PostgresDDL(schemaName);
         } else if ("H2".equals(databaseName)) {
             return new H2DDL(schemaName);
@@ -47,6 +69,8 @@ public class DDLFactory {
 
         if ("PostgreSQL".equals(databaseName)) {
             return new PostgresDDL(schemaName);
+        } else if ("H2".equals(databaseName)) {
+            return new H2DDL(schemaName);
         } else {
             throw new IllegalArgumentException(format(UNSUPPORTED_TYPE, SnapshotDDLProducer.class, databaseName));
         }
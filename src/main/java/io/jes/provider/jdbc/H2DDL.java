@@ -2,32 +2,99 @@ package io.jes.provider.jdbc;
 
 import java.util.Objects;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import static java.lang.String.format;
+import static java.lang.String.join;
+import static java.util.Collections.nCopies;
 
-public class H2DDL implements StoreDDLProducer {
+public class H2DDL implements StoreDDLProducer, SnapshotDDLProducer {
 
     private static final String READ_EVENTS = "SELECT * FROM %sevent_store WHERE id > ? ORDER BY id";
+    private static final String READ_EVENTS_WITH_LIMIT = "SELECT * FROM %sevent_store WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String READ_EVENTS_BY_TYPES = "SELECT * FROM %sevent_store WHERE id > ? "
+            + "AND (type IS NULL OR type IN (%s)) ORDER BY id";
     private static final String READ_EVENTS_BY_STREAM = "SELECT * FROM %sevent_store WHERE uuid = ? ORDER BY id";
-    private static final String READ_EVENTS_STREAM_VERSION = "SELECT count(*) FROM %sevent_store WHERE uuid = ?";
-    private static final String WRITE_EVENTS = "INSERT INTO %sevent_store (uuid, data) VALUES (?, ?)";
+    private static final String READ_EVENTS_BY_STREAM_WITH_SKIP = "SELECT * FROM %sevent_store WHERE uuid = ? "
+            + "AND version >= ? ORDER BY version";
+    private static final String READ_EVENTS_BY_STREAMS_WITH_SKIP = "SELECT * FROM %sevent_store WHERE %s "
+            + "ORDER BY uuid, version";
+    private static final String STREAM_WITH_SKIP = "(uuid = ? AND version >= ?)";
+    private static final String READ_EVENTS_STREAM_VERSION = "SELECT COALESCE(MAX(version) + 1, 0) FROM %sevent_store "
+            + "WHERE uuid = ?";
+    private static final String WRITE_EVENTS = "INSERT INTO %sevent_store (uuid, version, type, data) "
+            + "VALUES (?, ?, ?, ?)";
     private static final String DELETE_EVENTS = "DELETE FROM %sevent_store WHERE uuid = ?";
+    private static final String READ_NOT_VERSIONED_EVENTS = "SELECT EXISTS (SELECT 1 FROM %sevent_store "
+            + "WHERE uuid IS NOT NULL AND version IS NULL)";
+    // versions of events, written before the version column was introduced (or by instances, that don't version
+    // them yet), are numbered in order of ids after the last versioned event of the stream. H2 doesn't accept window
+    // functions in update sources, so events are merged
+    private static final String FILL_VERSIONS = "MERGE INTO %sevent_store e USING (SELECT n.id, "
+            + "(SELECT COALESCE(MAX(m.version) + 1, 0) FROM %<sevent_store m WHERE m.uuid = n.uuid) "
+            + "+ ROW_NUMBER() OVER (PARTITION BY n.uuid ORDER BY n.id) - 1 AS version FROM %<sevent_store n "
+            + "WHERE n.uuid IS NOT NULL AND n.version IS NULL) v ON e.id = v.id "
+            + "WHEN MATCHED THEN UPDATE SET version = v.version";
+
+    private static final String DELETE_AGGREGATES = "DELETE FROM %ssnapshot_store WHERE uuid = ?";
+    // snapshot of older stream version never overwrites the newer one
+    private static final String UPSERT_AGGREGATE = "MERGE INTO %ssnapshot_store t USING (SELECT CAST(? AS UUID) "
+            + "AS uuid, CAST(? AS BIGINT) AS version, CAST(? AS %s) AS data) s ON t.uuid = s.uuid "
+            + "WHEN MATCHED AND (t.version IS NULL OR t.version <= s.version) "
+            + "THEN UPDATE SET version = s.version, data = s.data "
+            + "WHEN NOT MATCHED THEN INSERT (uuid, version, data) VALUES (s.uuid, s.version, s.data)";
+    private static final String READ_AGGREGATE_BY_STREAM = "SELECT * FROM %ssnapshot_store WHERE uuid = ?";
+    private static final String READ_AGGREGATES_BY_STREAMS = "SELECT * FROM %ssnapshot_store WHERE uuid IN (%s)";
 
     private static final String CONTENT_NAME = "data";
     private static final String CREATE_SCHEMA = "CREATE SCHEMA IF NOT EXISTS %s;";
 
     private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS %sevent_store "
-            + "(id BIGSERIAL PRIMARY KEY, uuid UUID, " + CONTENT_NAME + " %s NOT NULL);";
-    private static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS uuid_idx ON %sevent_store (uuid);";
+            + "(id BIGSERIAL PRIMARY KEY, uuid UUID, version BIGINT, type VARCHAR(255), "
+            + "created TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " + CONTENT_NAME + " %s NOT NULL);";
+    // stores, created before the version column was introduced, with non-unique uuid index
+    private static final String ADD_VERSION_COLUMN = "ALTER TABLE %sevent_store ADD COLUMN IF NOT EXISTS "
+            + "version BIGINT;";
+    private static final String DROP_UUID_INDEX = "DROP INDEX IF EXISTS %suuid_idx;";
+    // stores, created before the type column was introduced
+    private static final String ADD_TYPE_COLUMN = "ALTER TABLE %sevent_store ADD COLUMN IF NOT EXISTS "
+            + "type VARCHAR(255);";
+    // stores, created before the created column was introduced: events written before have no creation time
+    private static final String ADD_CREATED_COLUMN = "ALTER TABLE %sevent_store ADD COLUMN IF NOT EXISTS "
+            + "created TIMESTAMP;ALTER TABLE %<sevent_store ALTER COLUMN created SET DEFAULT CURRENT_TIMESTAMP;";
+    private static final String CREATE_INDEX = "CREATE UNIQUE INDEX IF NOT EXISTS uuid_version_idx "
+            + "ON %sevent_store (uuid, version);";
+    private static final String CREATE_TYPE_INDEX = "CREATE INDEX IF NOT EXISTS type_id_idx "
+            + "ON %sevent_store (type, id);";
+
+    private static final String CREATE_SNAPSHOT_TABLE = "CREATE TABLE IF NOT EXISTS %ssnapshot_store "
+            + "(id BIGSERIAL PRIMARY KEY, uuid UUID NOT NULL, version BIGINT, " + CONTENT_NAME + " %s NOT NULL);";
+    // snapshot stores, created before snapshots were upserted: versionless, with non-unique uuid index
+    private static final String ADD_SNAPSHOT_VERSION_COLUMN = "ALTER TABLE %ssnapshot_store ADD COLUMN IF NOT EXISTS "
+            + "version BIGINT;";
+    private static final String DELETE_SNAPSHOT_DUPLICATES = "DELETE FROM %ssnapshot_store s WHERE EXISTS "
+            + "(SELECT 1 FROM %<ssnapshot_store d WHERE d.uuid = s.uuid AND d.id > s.id);";
+    private static final String DROP_SNAPSHOT_INDEX = "DROP INDEX IF EXISTS %ssnapshot_uuid_idx;";
+    private static final String CREATE_SNAPSHOT_INDEX = "CREATE UNIQUE INDEX IF NOT EXISTS snapshot_uuid_uidx "
+            + "ON %ssnapshot_store (uuid);";
 
     @Nonnull
     private final String schema;
     private String queryEvents;
+    private String queryEventsWithLimit;
     private String queryEventsByStream;
     private String queryEventsStreamVersion;
+    private String queryEventsByStreamWithSkip;
+    private String queryNotVersionedEvents;
+    private String fillVersions;
     private String insertEvents;
     private String deleteEvents;
 
+    private String upsertAggregate;
+    private String snapshotContentType = "TEXT";
+    private String deleteAggregates;
+    private String queryAggregateByStream;
+
     H2DDL(@Nonnull String schema) {
         this.schema = Objects.requireNonNull(schema);
     }
@@ -43,10 +110,34 @@ public class H2DDL implements StoreDDLProducer {
         final StringBuilder ddl = new StringBuilder();
         ddl.append(format(CREATE_SCHEMA, schema));
         ddl.append(format(CREATE_TABLE, formatSchema(), type));
+        ddl.append(format(ADD_VERSION_COLUMN, formatSchema()));
+        ddl.append(format(ADD_TYPE_COLUMN, formatSchema()));
+        ddl.append(format(ADD_CREATED_COLUMN, formatSchema()));
         ddl.append(format(CREATE_INDEX, formatSchema()));
+        // unique (uuid, version) index serves lookups by uuid as well
+        ddl.append(format(DROP_UUID_INDEX, formatSchema()));
+        ddl.append(format(CREATE_TYPE_INDEX, formatSchema()));
         return ddl.toString();
     }
 
+    @Nullable
+    @Override
+    public String queryNotVersionedEvents() {
+        if (queryNotVersionedEvents == null) {
+            queryNotVersionedEvents = format(READ_NOT_VERSIONED_EVENTS, formatSchema());
+        }
+        return queryNotVersionedEvents;
+    }
+
+    @Nullable
+    @Override
+    public String fillVersions() {
+        if (fillVersions == null) {
+            fillVersions = format(FILL_VERSIONS, formatSchema());
+        }
+        return fillVersions;
+    }
+
     @Nonnull
     @Override
     public String contentName() {
@@ -71,6 +162,21 @@ public class H2DDL implements StoreDDLProducer {
         return queryEvents;
     }
 
+    @Nullable
+    @Override
+    public String queryEventsWithLimit() {
+        if (queryEventsWithLimit == null) {
+            queryEventsWithLimit = format(READ_EVENTS_WITH_LIMIT, formatSchema());
+        }
+        return queryEventsWithLimit;
+    }
+
+    @Nullable
+    @Override
+    public String queryEventsByTypes(int types) {
+        return format(READ_EVENTS_BY_TYPES, formatSchema(), join(", ", nCopies(types, "?")));
+    }
+
     @Nonnull
     @Override
     public String deleteEvents() {
@@ -89,6 +195,22 @@ public class H2DDL implements StoreDDLProducer {
         return queryEventsByStream;
     }
 
+    @Nullable
+    @Override
+    public String queryEventsByUuidWithSkip() {
+        if (queryEventsByStreamWithSkip == null) {
+            queryEventsByStreamWithSkip = format(READ_EVENTS_BY_STREAM_WITH_SKIP, formatSchema());
+        }
+        return queryEventsByStreamWithSkip;
+    }
+
+    @Nullable
+    @Override
+    public String queryEventsByUuidsWithSkip(int streams) {
+        final String conditions = join(" OR ", nCopies(streams, STREAM_WITH_SKIP));
+        return format(READ_EVENTS_BY_STREAMS_WITH_SKIP, formatSchema(), conditions);
+    }
+
     @Nonnull
     @Override
     public String queryEventsStreamVersion() {
@@ -98,6 +220,59 @@ public class H2DDL implements StoreDDLProducer {
         return queryEventsStreamVersion;
     }
 
+    @Nonnull
+    @Override
+    public String createSnapshotStore(Class<?> contentType) {
+        if (contentType != String.class && contentType != byte[].class) {
+            throw new IllegalArgumentException("Illegal type of content column: " + contentType);
+        }
+        // upsert statement casts it's parameters to the column types
+        snapshotContentType = contentType == String.class ? "TEXT" : "BLOB";
+        upsertAggregate = null;
+
+        final StringBuilder ddl = new StringBuilder();
+        ddl.append(format(CREATE_SCHEMA, schema));
+        ddl.append(format(CREATE_SNAPSHOT_TABLE, formatSchema(), snapshotContentType));
+        ddl.append(format(ADD_SNAPSHOT_VERSION_COLUMN, formatSchema()));
+        ddl.append(format(DELETE_SNAPSHOT_DUPLICATES, formatSchema()));
+        ddl.append(format(DROP_SNAPSHOT_INDEX, formatSchema()));
+        ddl.append(format(CREATE_SNAPSHOT_INDEX, formatSchema()));
+        return ddl.toString();
+    }
+
+    @Nonnull
+    @Override
+    public String queryAggregateByUuid() {
+        if (queryAggregateByStream == null) {
+            queryAggregateByStream = format(READ_AGGREGATE_BY_STREAM, formatSchema());
+        }
+        return queryAggregateByStream;
+    }
+
+    @Nonnull
+    @Override
+    public String queryAggregatesByUuids(int count) {
+        return format(READ_AGGREGATES_BY_STREAMS, formatSchema(), join(", ", nCopies(count, "?")));
+    }
+
+    @Nonnull
+    @Override
+    public String upsertAggregate() {
+        if (upsertAggregate == null) {
+            upsertAggregate = format(UPSERT_AGGREGATE, formatSchema(), snapshotContentType);
+        }
+        return upsertAggregate;
+    }
+
+    @Nonnull
+    @Override
+    public String deleteAggregates() {
+        if (deleteAggregates == null) {
+            deleteAggregates = format(DELETE_AGGREGATES, formatSchema());
+        }
+        return deleteAggregates;
+    }
+
     @Nonnull
     private String formatSchema() {
         return schema + ".";
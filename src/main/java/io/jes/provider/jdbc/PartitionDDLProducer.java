@@ -0,0 +1,79 @@
+package io.jes.provider.jdbc;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Optional {@link StoreDDLProducer} component for {@literal Event Store}, partitioned by event id ranges. Partition
+ * number {@code n} holds events with ids from {@code n * partitionSize()} (inclusive) to
+ * {@code (n + 1) * partitionSize()} (exclusive).
+ *
+ * <p>Partitioned table can't have unique index without partition key, so (uuid, version) uniqueness is not enforced
+ * by the database: writers must serialize writes to the same stream with {@link #lockStream()}.
+ */
+public interface PartitionDDLProducer {
+
+    /**
+     * @return count of event ids in one partition.
+     */
+    long partitionSize();
+
+    /**
+     * @param partition number of partition.
+     * @return name of partition table, qualified with schema name.
+     */
+    @Nonnull
+    String partitionName(long partition);
+
+    /**
+     * Note: statements must be executed in one transaction. They fail, if partition is already attached.
+     *
+     * @param partition number of partition to create.
+     * @return ddl statements, that create partition table and attach it to {@literal Event Store}.
+     */
+    @Nonnull
+    String createPartition(long partition);
+
+    /**
+     * Note: detached partition becomes a regular table, which can be archived and dropped then. The statement must be
+     * executed outside of transaction block.
+     *
+     * @param partition number of partition to detach.
+     * @return ddl statement, that detaches partition from {@literal Event Store} without blocking its readers and
+     *     writers.
+     */
+    @Nonnull
+    String detachPartition(long partition);
+
+    /**
+     * @param partition number of partition, which detach was interrupted.
+     * @return ddl statement, that completes interrupted detach of partition.
+     */
+    @Nonnull
+    String finalizeDetachPartition(long partition);
+
+    /**
+     * @return SQL select statement, that returns true if {@literal Event Store} table exists, but is not partitioned.
+     */
+    @Nonnull
+    String queryNotPartitionedStore();
+
+    /**
+     * @return SQL select statement for quering numbers of attached partitions in ascending order.
+     */
+    @Nonnull
+    String queryPartitions();
+
+    /**
+     * @return SQL select statement for quering last generated event id.
+     */
+    @Nonnull
+    String queryLastEventId();
+
+    /**
+     * Note: statement parameter is stream lock key. The lock is held till the end of the transaction.
+     *
+     * @return SQL statement, that locks event stream for writes.
+     */
+    @Nonnull
+    String lockStream();
+}
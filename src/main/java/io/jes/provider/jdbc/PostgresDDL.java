@@ -3,6 +3,9 @@ package io.jes.provider.jdbc;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import static java.lang.String.join;
+import static java.util.Collections.nCopies;
+
 class PostgresDDL implements StoreDDLProducer, SnapshotDDLProducer {
 
     /**
@@ -13,48 +16,123 @@ class PostgresDDL implements StoreDDLProducer, SnapshotDDLProducer {
      * <p>CREATE TABLE IF NOT EXISTS foo.event_store (
      *      id BIGSERIAL PRIMARY KEY,
      *      uuid UUID,
+     *      version BIGINT,
+     *      type VARCHAR(255),
+     *      created TIMESTAMPTZ DEFAULT clock_timestamp(),
      *      data (BYTEA | TEXT) NOT NULL
      * );</p>
      *
-     * <p>CREATE INDEX CONCURRENTLY IF NOT EXISTS uuid_idx ON foo.event_store (uuid NULLS LAST);</p>
+     * <p>ALTER TABLE foo.event_store ADD COLUMN IF NOT EXISTS version BIGINT;</p>
+     *
+     * <p>ALTER TABLE foo.event_store ADD COLUMN IF NOT EXISTS type VARCHAR(255);</p>
+     *
+     * <p>ALTER TABLE foo.event_store ADD COLUMN IF NOT EXISTS created TIMESTAMPTZ;</p>
+     *
+     * <p>ALTER TABLE foo.event_store ALTER COLUMN created SET DEFAULT clock_timestamp();</p>
+     *
+     * <p>DO $$ BEGIN IF EXISTS (SELECT 1 FROM pg_index WHERE indexrelid = to_regclass('foo.uuid_version_idx')
+     *      AND NOT indisvalid) THEN DROP INDEX foo.uuid_version_idx; END IF; END $$;</p>
+     *
+     * <p>CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uuid_version_idx ON foo.event_store (uuid, version);</p>
+     *
+     * <p>DO $$ BEGIN IF EXISTS (SELECT 1 FROM pg_index WHERE indexrelid = to_regclass('foo.uuid_version_idx')
+     *      AND indisvalid) THEN DROP INDEX IF EXISTS foo.uuid_idx; END IF; END $$;</p>
+     *
+     * <p>CREATE INDEX CONCURRENTLY IF NOT EXISTS not_versioned_idx ON foo.event_store (id)
+     *      WHERE uuid IS NOT NULL AND version IS NULL;</p>
+     *
+     * <p>CREATE INDEX CONCURRENTLY IF NOT EXISTS type_id_idx ON foo.event_store (type, id);</p>
      *
      */
     private static final String READ_EVENTS = "SELECT * FROM %sevent_store WHERE id > ? ORDER BY id";
+    private static final String READ_EVENTS_WITH_LIMIT = "SELECT * FROM %sevent_store WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String READ_EVENTS_BY_TYPES = "SELECT * FROM %sevent_store WHERE id > ? "
+            + "AND (type IS NULL OR type IN (%s)) ORDER BY id";
     private static final String READ_EVENTS_BY_STREAM = "SELECT * FROM %sevent_store WHERE uuid = ? ORDER BY id";
-    private static final String READ_EVENTS_STREAM_VERSION = "SELECT count(*) FROM %sevent_store WHERE uuid = ?";
-    private static final String READ_EVENTS_BY_STREAM_WITH_SKIP = "SELECT * FROM %sevent_store WHERE uuid = ? ORDER "
-            + "BY id OFFSET ?";
-    private static final String WRITE_EVENTS = "INSERT INTO %sevent_store (uuid, data) VALUES (?, ?)";
+    private static final String READ_EVENTS_BY_STREAMS_WITH_SKIP = "SELECT * FROM %sevent_store WHERE %s "
+            + "ORDER BY uuid, version";
+    private static final String STREAM_WITH_SKIP = "(uuid = ? AND version >= ?)";
+    private static final String READ_EVENTS_STREAM_VERSION = "SELECT COALESCE(MAX(version) + 1, 0) FROM %sevent_store "
+            + "WHERE uuid = ?";
+    private static final String READ_EVENTS_BY_STREAM_WITH_SKIP = "SELECT * FROM %sevent_store WHERE uuid = ? "
+            + "AND version >= ? ORDER BY version";
+    private static final String WRITE_EVENTS = "INSERT INTO %sevent_store (uuid, version, type, data) "
+            + "VALUES (?, ?, ?, ?)";
     private static final String DELETE_EVENTS = "DELETE FROM %sevent_store WHERE uuid = ?";
+    // served by the partial not_versioned_idx, so it doesn't scan the store
+    private static final String READ_NOT_VERSIONED_EVENTS = "SELECT EXISTS (SELECT 1 FROM %sevent_store "
+            + "WHERE uuid IS NOT NULL AND version IS NULL)";
+    // versions of events, written before the version column was introduced (or by instances, that don't version
+    // them yet), are numbered in order of ids after the last versioned event of the stream. Store is locked against
+    // writes, so concurrently appended versions and migrations of other instances don't collide with numbered ones
+    private static final String FILL_VERSIONS = "LOCK TABLE %sevent_store IN SHARE ROW EXCLUSIVE MODE;"
+            + "UPDATE %<sevent_store e SET version = v.version FROM (SELECT n.id, "
+            + "(SELECT COALESCE(MAX(m.version) + 1, 0) FROM %<sevent_store m WHERE m.uuid = n.uuid) "
+            + "+ ROW_NUMBER() OVER (PARTITION BY n.uuid ORDER BY n.id) - 1 AS version FROM %<sevent_store n "
+            + "WHERE n.uuid IS NOT NULL AND n.version IS NULL) v WHERE e.id = v.id;";
 
     private static final String DELETE_AGGREGATES = "DELETE FROM %ssnapshot_store WHERE uuid = ?";
-    private static final String WRITE_AGGREGATE = "INSERT INTO %ssnapshot_store (data, uuid) VALUES (?, ?)";
-    private static final String UPDATE_AGGREGATE = "UPDATE %ssnapshot_store SET data = ? WHERE uuid = ?";
+    // snapshot of older stream version never overwrites the newer one
+    private static final String UPSERT_AGGREGATE = "INSERT INTO %ssnapshot_store AS t (uuid, version, data) "
+            + "VALUES (?, ?, ?) ON CONFLICT (uuid) DO UPDATE SET version = EXCLUDED.version, data = EXCLUDED.data "
+            + "WHERE t.version IS NULL OR t.version <= EXCLUDED.version";
     private static final String READ_AGGREGATE_BY_STREAM = "SELECT * FROM %ssnapshot_store WHERE uuid = ?";
+    private static final String READ_AGGREGATES_BY_STREAMS = "SELECT * FROM %ssnapshot_store WHERE uuid IN (%s)";
 
     private static final String CONTENT_NAME = "data";
     private static final String CREATE_SCHEMA = "CREATE SCHEMA IF NOT EXISTS %s;";
 
     private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS %sevent_store "
-            + "(id BIGSERIAL PRIMARY KEY, uuid UUID, " + CONTENT_NAME + " %s NOT NULL);";
-    private static final String CREATE_INDEX = "CREATE INDEX CONCURRENTLY IF NOT EXISTS uuid_idx "
-            + "ON %sevent_store (uuid NULLS LAST);";
+            + "(id BIGSERIAL PRIMARY KEY, uuid UUID, version BIGINT, type VARCHAR(255), "
+            + "created TIMESTAMPTZ DEFAULT clock_timestamp(), " + CONTENT_NAME + " %s NOT NULL);";
+    // stores, created before the version column was introduced, with non-unique uuid index
+    private static final String ADD_VERSION_COLUMN = "ALTER TABLE %sevent_store ADD COLUMN IF NOT EXISTS "
+            + "version BIGINT;";
+    // failed or interrupted concurrent build leaves invalid index, that IF NOT EXISTS would skip forever
+    private static final String DROP_INVALID_INDEX = "DO $$ BEGIN IF EXISTS (SELECT 1 FROM pg_index "
+            + "WHERE indexrelid = to_regclass('%1$suuid_version_idx') AND NOT indisvalid) "
+            + "THEN DROP INDEX %1$suuid_version_idx; END IF; END $$;";
+    // unique (uuid, version) index serves lookups by uuid as well, so the old one is dropped once the new is valid
+    private static final String DROP_UUID_INDEX = "DO $$ BEGIN IF EXISTS (SELECT 1 FROM pg_index "
+            + "WHERE indexrelid = to_regclass('%1$suuid_version_idx') AND indisvalid) "
+            + "THEN DROP INDEX IF EXISTS %1$suuid_idx; END IF; END $$;";
+    private static final String CREATE_NOT_VERSIONED_INDEX = "CREATE INDEX CONCURRENTLY IF NOT EXISTS "
+            + "not_versioned_idx ON %sevent_store (id) WHERE uuid IS NOT NULL AND version IS NULL;";
+    // stores, created before the type column was introduced
+    private static final String ADD_TYPE_COLUMN = "ALTER TABLE %sevent_store ADD COLUMN IF NOT EXISTS "
+            + "type VARCHAR(255);";
+    // stores, created before the created column was introduced. Column is added without default, that would rewrite
+    // the whole table, so events written before have no creation time
+    static final String ADD_CREATED_COLUMN = "ALTER TABLE %sevent_store ADD COLUMN IF NOT EXISTS "
+            + "created TIMESTAMPTZ;ALTER TABLE %<sevent_store ALTER COLUMN created SET DEFAULT clock_timestamp();";
+    private static final String CREATE_INDEX = "CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uuid_version_idx "
+            + "ON %sevent_store (uuid, version);";
+    private static final String CREATE_TYPE_INDEX = "CREATE INDEX CONCURRENTLY IF NOT EXISTS type_id_idx "
+            + "ON %sevent_store (type, id);";
 
     private static final String CREATE_SNAPSHOT_TABLE = "CREATE TABLE IF NOT EXISTS %ssnapshot_store "
-            + "(id BIGSERIAL PRIMARY KEY, uuid UUID NOT NULL, " + CONTENT_NAME + " TEXT NOT NULL);";
-    private static final String CREATE_SNAPSHOT_INDEX = "CREATE INDEX CONCURRENTLY IF NOT EXISTS snapshot_uuid_idx "
-            + "ON %ssnapshot_store (uuid NULLS LAST);";
+            + "(id BIGSERIAL PRIMARY KEY, uuid UUID NOT NULL, version BIGINT, " + CONTENT_NAME + " %s NOT NULL);";
+    // snapshot stores, created before snapshots were upserted: versionless, with non-unique uuid index
+    private static final String ADD_SNAPSHOT_VERSION_COLUMN = "ALTER TABLE %ssnapshot_store ADD COLUMN IF NOT EXISTS "
+            + "version BIGINT;";
+    private static final String DELETE_SNAPSHOT_DUPLICATES = "DELETE FROM %ssnapshot_store s WHERE EXISTS "
+            + "(SELECT 1 FROM %<ssnapshot_store d WHERE d.uuid = s.uuid AND d.id > s.id);";
+    private static final String DROP_SNAPSHOT_INDEX = "DROP INDEX IF EXISTS %ssnapshot_uuid_idx;";
+    private static final String CREATE_SNAPSHOT_INDEX = "CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS "
+            + "snapshot_uuid_uidx ON %ssnapshot_store (uuid);";
 
     private final String schema;
     private String queryEvents;
+    private String queryEventsWithLimit;
     private String queryEventsByStream;
     private String queryEventsStreamVersion;
     private String queryEventsByStreamWithSkip;
+    private String queryNotVersionedEvents;
+    private String fillVersions;
     private String insertEvents;
     private String deleteEvents;
 
-    private String insertAggregate;
-    private String updateAggregate;
+    private String upsertAggregate;
     private String deleteAggregates;
     private String queryAggregateByStream;
 
@@ -73,10 +151,35 @@ class PostgresDDL implements StoreDDLProducer, SnapshotDDLProducer {
         final StringBuilder ddl = new StringBuilder();
         ddl.append(String.format(CREATE_SCHEMA, schema));
         ddl.append(String.format(CREATE_TABLE, formatSchema(), type));
+        ddl.append(String.format(ADD_VERSION_COLUMN, formatSchema()));
+        ddl.append(String.format(ADD_TYPE_COLUMN, formatSchema()));
+        ddl.append(String.format(ADD_CREATED_COLUMN, formatSchema()));
+        ddl.append(String.format(DROP_INVALID_INDEX, formatSchema()));
         ddl.append(String.format(CREATE_INDEX, formatSchema()));
+        ddl.append(String.format(DROP_UUID_INDEX, formatSchema()));
+        ddl.append(String.format(CREATE_NOT_VERSIONED_INDEX, formatSchema()));
+        ddl.append(String.format(CREATE_TYPE_INDEX, formatSchema()));
         return ddl.toString();
     }
 
+    @Nullable
+    @Override
+    public String queryNotVersionedEvents() {
+        if (queryNotVersionedEvents == null) {
+            queryNotVersionedEvents = String.format(READ_NOT_VERSIONED_EVENTS, formatSchema());
+        }
+        return queryNotVersionedEvents;
+    }
+
+    @Nullable
+    @Override
+    public String fillVersions() {
+        if (fillVersions == null) {
+            fillVersions = String.format(FILL_VERSIONS, formatSchema());
+        }
+        return fillVersions;
+    }
+
     @Nonnull
     @Override
     public String contentName() {
@@ -101,6 +204,21 @@ class PostgresDDL implements StoreDDLProducer, SnapshotDDLProducer {
         return queryEvents;
     }
 
+    @Nullable
+    @Override
+    public String queryEventsWithLimit() {
+        if (queryEventsWithLimit == null) {
+            queryEventsWithLimit = String.format(READ_EVENTS_WITH_LIMIT, formatSchema());
+        }
+        return queryEventsWithLimit;
+    }
+
+    @Nullable
+    @Override
+    public String queryEventsByTypes(int types) {
+        return String.format(READ_EVENTS_BY_TYPES, formatSchema(), join(", ", nCopies(types, "?")));
+    }
+
     @Nonnull
     @Override
     public String deleteEvents() {
@@ -128,6 +246,13 @@ class PostgresDDL implements StoreDDLProducer, SnapshotDDLProducer {
         return queryEventsByStreamWithSkip;
     }
 
+    @Nullable
+    @Override
+    public String queryEventsByUuidsWithSkip(int streams) {
+        final String conditions = join(" OR ", nCopies(streams, STREAM_WITH_SKIP));
+        return String.format(READ_EVENTS_BY_STREAMS_WITH_SKIP, formatSchema(), conditions);
+    }
+
     @Nonnull
     @Override
     public String queryEventsStreamVersion() {
@@ -140,12 +265,16 @@ class PostgresDDL implements StoreDDLProducer, SnapshotDDLProducer {
     @Nonnull
     @Override
     public String createSnapshotStore(Class<?> contentType) {
-        if (contentType != String.class) {
+        if (contentType != String.class && contentType != byte[].class) {
             throw new IllegalArgumentException("Illegal type of content column: " + contentType);
         }
+        final String type = contentType == String.class ? "TEXT" : "BYTEA";
 
         final StringBuilder ddl = new StringBuilder();
-        ddl.append(String.format(CREATE_SNAPSHOT_TABLE, formatSchema()));
+        ddl.append(String.format(CREATE_SNAPSHOT_TABLE, formatSchema(), type));
+        ddl.append(String.format(ADD_SNAPSHOT_VERSION_COLUMN, formatSchema()));
+        ddl.append(String.format(DELETE_SNAPSHOT_DUPLICATES, formatSchema()));
+        ddl.append(String.format(DROP_SNAPSHOT_INDEX, formatSchema()));
         ddl.append(String.format(CREATE_SNAPSHOT_INDEX, formatSchema()));
         return ddl.toString();
     }
@@ -161,20 +290,17 @@ class PostgresDDL implements StoreDDLProducer, SnapshotDDLProducer {
 
     @Nonnull
     @Override
-    public String insertAggregate() {
-        if (insertAggregate == null) {
-            insertAggregate = String.format(WRITE_AGGREGATE, formatSchema());
-        }
-        return insertAggregate;
+    public String queryAggregatesByUuids(int count) {
+        return String.format(READ_AGGREGATES_BY_STREAMS, formatSchema(), join(", ", nCopies(count, "?")));
     }
 
     @Nonnull
     @Override
-    public String updateAggregate() {
-        if (updateAggregate == null) {
-            updateAggregate = String.format(UPDATE_AGGREGATE, formatSchema());
+    public String upsertAggregate() {
+        if (upsertAggregate == null) {
+            upsertAggregate = String.format(UPSERT_AGGREGATE, formatSchema());
         }
-        return updateAggregate;
+        return upsertAggregate;
     }
 
     @Nonnull
@@ -187,7 +313,7 @@ class PostgresDDL implements StoreDDLProducer, SnapshotDDLProducer {
     }
 
     @Nonnull
-    private String formatSchema() {
+    String formatSchema() {
         return schema + ".";
     }
 }
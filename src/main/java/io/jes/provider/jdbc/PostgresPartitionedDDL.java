@@ -0,0 +1,168 @@
+package io.jes.provider.jdbc;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link PostgresDDL}, that declaratively partitions {@literal Event Store} by event id ranges (PostgreSQL 14+).
+ * Queries by offset ({@code id > ?}) are pruned to partitions with greater ids, so old partitions can be detached
+ * and archived without affecting readers of the recent events.
+ * Partitions are maintained without {@code ACCESS EXCLUSIVE} lock of {@literal Event Store}: new partition is created
+ * as a regular table and attached then, old one is detached concurrently.
+ */
+class PostgresPartitionedDDL extends PostgresDDL implements PartitionDDLProducer {
+
+    /**
+     * Provided ddl statements (assumed schema name 'foo')
+     *
+     * <p>CREATE SCHEMA IF NOT EXISTS foo;</p>
+     *
+     * <p>CREATE TABLE IF NOT EXISTS foo.event_store (
+     *      id BIGSERIAL,
+     *      uuid UUID,
+     *      version BIGINT,
+     *      type VARCHAR(255),
+     *      created TIMESTAMPTZ DEFAULT clock_timestamp(),
+     *      data (BYTEA | TEXT) NOT NULL,
+     *      PRIMARY KEY (id)
+     * ) PARTITION BY RANGE (id);</p>
+     *
+     * <p>ALTER TABLE foo.event_store ADD COLUMN IF NOT EXISTS created TIMESTAMPTZ;</p>
+     *
+     * <p>ALTER TABLE foo.event_store ALTER COLUMN created SET DEFAULT clock_timestamp();</p>
+     *
+     * <p>CREATE INDEX IF NOT EXISTS uuid_version_idx ON foo.event_store (uuid, version);</p>
+     *
+     * <p>CREATE INDEX IF NOT EXISTS type_id_idx ON foo.event_store (type, id);</p>
+     *
+     * <p>Partitions are created apart from the store (see {@link #createPartition(long)}).</p>
+     */
+    private static final String CREATE_SCHEMA = "CREATE SCHEMA IF NOT EXISTS %s;";
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS %sevent_store "
+            + "(id BIGSERIAL, uuid UUID, version BIGINT, type VARCHAR(255), "
+            + "created TIMESTAMPTZ DEFAULT clock_timestamp(), data %s NOT NULL, PRIMARY KEY (id)) "
+            + "PARTITION BY RANGE (id);";
+    // partitioned index can't be unique without partition key and can't be created concurrently
+    private static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS uuid_version_idx "
+            + "ON %sevent_store (uuid, version);";
+    private static final String CREATE_TYPE_INDEX = "CREATE INDEX IF NOT EXISTS type_id_idx "
+            + "ON %sevent_store (type, id);";
+
+    private static final String PARTITION_NAME = "%sevent_store_p%d";
+    // CREATE TABLE ... PARTITION OF locks the whole store, so partition is created as a regular table and attached
+    // then (SHARE UPDATE EXCLUSIVE lock). The check constraint lets attach skip scanning of partition rows
+    private static final String CREATE_PARTITION = "CREATE TABLE IF NOT EXISTS %1$s "
+            + "(LIKE %2$sevent_store INCLUDING DEFAULTS INCLUDING CONSTRAINTS);"
+            + "ALTER TABLE %1$s ADD CONSTRAINT %3$s CHECK (id >= %4$d AND id < %5$d);"
+            + "ALTER TABLE %2$sevent_store ATTACH PARTITION %1$s FOR VALUES FROM (%4$d) TO (%5$d);"
+            + "ALTER TABLE %1$s DROP CONSTRAINT %3$s;";
+    private static final String RANGE_CONSTRAINT_NAME = "event_store_p%d_range";
+    private static final String DETACH_PARTITION = "ALTER TABLE %sevent_store DETACH PARTITION %s CONCURRENTLY;";
+    private static final String FINALIZE_DETACH_PARTITION = "ALTER TABLE %sevent_store DETACH PARTITION %s FINALIZE;";
+    private static final String READ_NOT_PARTITIONED_STORE = "SELECT EXISTS (SELECT 1 FROM pg_class "
+            + "WHERE oid = to_regclass('%sevent_store') AND relkind <> 'p')";
+    private static final String READ_PARTITIONS = "SELECT CAST(substring(c.relname FROM 'event_store_p(\\d+)$') "
+            + "AS BIGINT) AS partition FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+            + "WHERE i.inhparent = CAST('%sevent_store' AS regclass) ORDER BY 1";
+    private static final String READ_LAST_EVENT_ID = "SELECT last_value FROM %sevent_store_id_seq";
+    private static final String LOCK_STREAM = "SELECT pg_advisory_xact_lock(?)";
+
+    private final String schema;
+    private final long partitionSize;
+
+    PostgresPartitionedDDL(@Nonnull String schema, long partitionSize) {
+        super(schema);
+        if (partitionSize <= 0) {
+            throw new IllegalArgumentException("Partition size must be greater than 0. Actual: " + partitionSize);
+        }
+        this.schema = schema;
+        this.partitionSize = partitionSize;
+    }
+
+    @Nonnull
+    @Override
+    public String createStore(@Nonnull Class<?> contentType) {
+        if (contentType != String.class && contentType != byte[].class) {
+            throw new IllegalArgumentException("Illegal type of content column: " + contentType);
+        }
+        final String type = contentType == String.class ? "TEXT" : "BYTEA";
+
+        final StringBuilder ddl = new StringBuilder();
+        ddl.append(String.format(CREATE_SCHEMA, schema));
+        ddl.append(String.format(CREATE_TABLE, formatSchema(), type));
+        ddl.append(String.format(ADD_CREATED_COLUMN, formatSchema()));
+        ddl.append(String.format(CREATE_INDEX, formatSchema()));
+        ddl.append(String.format(CREATE_TYPE_INDEX, formatSchema()));
+        return ddl.toString();
+    }
+
+    /**
+     * Partitioned store is created with the version column, so it's never migrated.
+     */
+    @Nullable
+    @Override
+    public String queryNotVersionedEvents() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String fillVersions() {
+        return null;
+    }
+
+    @Override
+    public long partitionSize() {
+        return partitionSize;
+    }
+
+    @Nonnull
+    @Override
+    public String partitionName(long partition) {
+        return String.format(PARTITION_NAME, formatSchema(), partition);
+    }
+
+    @Nonnull
+    @Override
+    public String createPartition(long partition) {
+        final long from = partition * partitionSize;
+        return String.format(CREATE_PARTITION, partitionName(partition), formatSchema(),
+                String.format(RANGE_CONSTRAINT_NAME, partition), from, from + partitionSize);
+    }
+
+    @Nonnull
+    @Override
+    public String detachPartition(long partition) {
+        return String.format(DETACH_PARTITION, formatSchema(), partitionName(partition));
+    }
+
+    @Nonnull
+    @Override
+    public String finalizeDetachPartition(long partition) {
+        return String.format(FINALIZE_DETACH_PARTITION, formatSchema(), partitionName(partition));
+    }
+
+    @Nonnull
+    @Override
+    public String queryNotPartitionedStore() {
+        return String.format(READ_NOT_PARTITIONED_STORE, formatSchema());
+    }
+
+    @Nonnull
+    @Override
+    public String queryPartitions() {
+        return String.format(READ_PARTITIONS, formatSchema());
+    }
+
+    @Nonnull
+    @Override
+    public String queryLastEventId() {
+        return String.format(READ_LAST_EVENT_ID, formatSchema());
+    }
+
+    @Nonnull
+    @Override
+    public String lockStream() {
+        return LOCK_STREAM;
+    }
+}
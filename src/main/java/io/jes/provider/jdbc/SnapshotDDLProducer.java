@@ -6,8 +6,9 @@ public interface SnapshotDDLProducer {
 
     /**
      * Return ddl statement for {@literal Snapshot Store} based on aggregate payload type.
+     * Note: statements of this producer refer to the content column of the type, given to the last call.
      *
-     * @param contentType type of serialized aggregate.
+     * @param contentType type of serialized aggregate: {@code String.class} (json) or {@code byte[].class} (binary).
      * @return ddl of {@literal Snapshot Store}, never null.
      */
     @Nonnull
@@ -20,16 +21,22 @@ public interface SnapshotDDLProducer {
     String queryAggregateByUuid();
 
     /**
-     * @return SQL insert statement for specific database.
+     * Note: statement parameters are aggregate uuids.
+     *
+     * @param count count of aggregates to query.
+     * @return SQL select statement for quering aggregates by many uuids at once for specific database.
      */
     @Nonnull
-    String insertAggregate();
+    String queryAggregatesByUuids(int count);
 
     /**
-     * @return SQL update statement for specific database.
+     * Note: statement parameters are aggregate uuid, stream version and data. Existing snapshot is overwritten only
+     * if it's stream version is not greater than the given one.
+     *
+     * @return SQL insert-or-update statement for specific database.
      */
     @Nonnull
-    String updateAggregate();
+    String upsertAggregate();
 
     /**
      * @return SQL delete statement for specific database. (Clear whole snapshot store)
@@ -19,6 +19,30 @@ public interface StoreDDLProducer {
     @Nonnull
     String createStore(Class<?> contentType);
 
+    /**
+     * Optional query for one-off migration of stores, created before the version column was introduced.
+     * Note: query selects single boolean: whether there are events of streams without version.
+     *
+     * @return SQL select statement for specific database.
+     */
+    @Nullable
+    default String queryNotVersionedEvents() {
+        return null;
+    }
+
+    /**
+     * Optional statement for one-off migration of stores, created before the version column was introduced.
+     * Events without version are numbered in order of ids, after the last versioned event of their stream, so
+     * events, written by instances, that don't version them yet, never collide with versioned ones.
+     * Note: statement is executed in a transaction and only if {@link #queryNotVersionedEvents()} found such events.
+     *
+     * @return SQL update statement for specific database.
+     */
+    @Nullable
+    default String fillVersions() {
+        return null;
+    }
+
     /**
      * @return event payload (serialized data) column name, never null.
      */
@@ -26,6 +50,9 @@ public interface StoreDDLProducer {
     String contentName();
 
     /**
+     * Note: statement parameters are stream uuid, event version within the stream, event type name and event payload.
+     * Pair of stream uuid and event version must be unique.
+     *
      * @return SQL insert statement for specific database.
      */
     @Nonnull
@@ -37,6 +64,30 @@ public interface StoreDDLProducer {
     @Nonnull
     String queryEvents();
 
+    /**
+     * Optional query for bounded page reads.
+     * Note: statement parameters are offset and max count of events to select.
+     *
+     * @return SQL select statement with limit of selected rows for specific database.
+     */
+    @Nullable
+    default String queryEventsWithLimit() {
+        return null;
+    }
+
+    /**
+     * Optional query for reads filtered by event types.
+     * Note: statement parameters are offset and type names, one per type. Events, written before the type column was
+     * introduced, have no type name and are selected too, so they must be filtered out after deserialization.
+     *
+     * @param types count of event types to select.
+     * @return SQL select statement for quering events of given types from offset for specific database.
+     */
+    @Nullable
+    default String queryEventsByTypes(int types) {
+        return null;
+    }
+
     /**
      * @return SQL delete statement for specific database.
      */
@@ -51,6 +102,10 @@ public interface StoreDDLProducer {
 
     /**
      * Optional query for snapshot processing.
+     * Note: statement parameters are stream uuid and count of events to skip. Event versions are sequential within
+     * the stream, so skipped events should be filtered out by version (seek through (uuid, version) index) instead
+     * of SQL OFFSET, which still reads and discards every skipped row.
+     *
      * @return SQL select statement for quering events by uuid with skip first n for specific database.
      */
     @Nullable
@@ -59,7 +114,22 @@ public interface StoreDDLProducer {
     }
 
     /**
-     * Note: event stream: collection of events grouped by {@link Event#uuid()}.
+     * Optional query for bulk snapshot processing.
+     * Note: statement parameters are pairs of stream uuid and count of events to skip, one pair per stream. Events
+     * are ordered by version within each stream.
+     *
+     * @param streams count of streams to read.
+     * @return SQL select statement for quering events of many streams with skip first n of each stream for specific
+     *      database.
+     */
+    @Nullable
+    default String queryEventsByUuidsWithSkip(int streams) {
+        return null;
+    }
+
+    /**
+     * Note: event stream: collection of events grouped by {@link Event#uuid()}. Stream version is the version of the
+     * next event to append to the stream.
      *
      * @return SQL select statement for quering event stream version for specific database.
      */
@@ -13,6 +13,7 @@ import javax.persistence.Index;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.Table;
 import javax.persistence.Transient;
+import javax.persistence.UniqueConstraint;
 
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -22,6 +23,9 @@ import static lombok.AccessLevel.PROTECTED;
 
 /**
  * Simple JPA entity for storing event data.
+ * Note: unique (uuid, version) index replaces the former uuid_idx, as it serves lookups by uuid as well. Schema
+ * generation doesn't migrate existing stores: the version column of existing events must be filled in, and uuid_idx
+ * dropped, the way {@link io.jes.provider.JdbcStoreProvider} does.
  */
 @Getter
 @MappedSuperclass
@@ -37,9 +41,17 @@ public abstract class StoreEntry {
     @Column(name = "uuid", updatable = false)
     private final UUID uuid;
 
-    StoreEntry(@Nullable UUID uuid) {
+    @Column(name = "version", updatable = false)
+    private final Long version;
+
+    @Column(name = "type", updatable = false)
+    private final String type;
+
+    StoreEntry(@Nullable UUID uuid, @Nullable Long version, @Nullable String type) {
         this.id = 0;
         this.uuid = uuid;
+        this.version = version;
+        this.type = type;
     }
 
     @Nonnull
@@ -50,14 +62,19 @@ public abstract class StoreEntry {
     @Entity
     @NoArgsConstructor(access = PROTECTED, force = true)
     @EqualsAndHashCode(exclude = {"data"}, callSuper = true)
-    @Table(name = "event_store", indexes = {@Index(name = "uuid_idx", columnList = "uuid")})
+    @Table(name = "event_store", uniqueConstraints = {
+            @UniqueConstraint(name = "uuid_version_idx", columnNames = {"uuid", "version"})
+    }, indexes = {
+            @Index(name = "type_id_idx", columnList = "type, id")
+    })
     static class StoreBinaryEntry extends StoreEntry {
 
         @Column(name = "data", nullable = false, updatable = false, columnDefinition = "BYTEA")
         private final byte[] data;
 
-        StoreBinaryEntry(@Nullable UUID uuid, @Nonnull byte[] data) {
-            super(uuid);
+        StoreBinaryEntry(@Nullable UUID uuid, @Nullable Long version, @Nullable String type,
+                         @Nonnull byte[] data) {
+            super(uuid, version, type);
             this.data = Objects.requireNonNull(data, "Event data can't be null");
         }
     }
@@ -66,14 +83,19 @@ public abstract class StoreEntry {
     @Entity
     @NoArgsConstructor(access = PROTECTED, force = true)
     @EqualsAndHashCode(exclude = {"data"}, callSuper = true)
-    @Table(name = "event_store", indexes = {@Index(name = "uuid_idx", columnList = "uuid")})
+    @Table(name = "event_store", uniqueConstraints = {
+            @UniqueConstraint(name = "uuid_version_idx", columnNames = {"uuid", "version"})
+    }, indexes = {
+            @Index(name = "type_id_idx", columnList = "type, id")
+    })
     static class StoreStringEntry extends StoreEntry {
 
         @Column(name = "data", nullable = false, updatable = false, columnDefinition = "TEXT")
         private final String data;
 
-        StoreStringEntry(@Nullable UUID uuid, @Nonnull String data) {
-            super(uuid);
+        StoreStringEntry(@Nullable UUID uuid, @Nullable Long version, @Nullable String type,
+                         @Nonnull String data) {
+            super(uuid, version, type);
             this.data = Objects.requireNonNull(data, "Event data can't be null");
         }
 
@@ -36,11 +36,37 @@ public class StoreEntryFactory {
      * @return constructed and initialized {@link StoreEntry} with given uuid and payload.
      */
     public static StoreEntry newEntry(@Nullable UUID uuid, @Nonnull Object payload) {
+        return newEntry(uuid, null, payload);
+    }
+
+    /**
+     * Factory mathod for creatig new {@literal store entry} based on paeload type.
+     *
+     * @param uuid    is uuid of event stream, if present.
+     * @param version is version of event in it's stream, if present.
+     * @param payload is 'raw' event.
+     * @return constructed and initialized {@link StoreEntry} with given uuid, version and payload.
+     */
+    public static StoreEntry newEntry(@Nullable UUID uuid, @Nullable Long version, @Nonnull Object payload) {
+        return newEntry(uuid, version, null, payload);
+    }
+
+    /**
+     * Factory mathod for creatig new {@literal store entry} based on paeload type.
+     *
+     * @param uuid    is uuid of event stream, if present.
+     * @param version is version of event in it's stream, if present.
+     * @param type    is type name of event, if present.
+     * @param payload is 'raw' event.
+     * @return constructed and initialized {@link StoreEntry} with given uuid, version, type name and payload.
+     */
+    public static StoreEntry newEntry(@Nullable UUID uuid, @Nullable Long version, @Nullable String type,
+                                      @Nonnull Object payload) {
         Objects.requireNonNull(payload, "Event payload must not be null");
         if (payload instanceof String) {
-            return new StoreEntry.StoreStringEntry(uuid, (String) payload);
+            return new StoreEntry.StoreStringEntry(uuid, version, type, (String) payload);
         } else if (payload instanceof byte[]) {
-            return new StoreEntry.StoreBinaryEntry(uuid, (byte[]) payload);
+            return new StoreEntry.StoreBinaryEntry(uuid, version, type, (byte[]) payload);
         }
         throw new SerializationException("Payload of type " + payload.getClass() + " cannot be processed");
     }
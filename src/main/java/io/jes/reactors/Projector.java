@@ -1,5 +1,6 @@
 package io.jes.reactors;
 
+import java.time.Duration;
 import java.util.Objects;
 import javax.annotation.Nonnull;
 
@@ -17,6 +18,21 @@ public abstract class Projector extends Reactor {
         this.lockManager = Objects.requireNonNull(lockManager, "LockManager must not be null");
     }
 
+    /**
+     * Constructs projector, that tails the store in gap-safe mode (see {@link Reactor}): events past the gap in ids
+     * are not projected until the gap is filled or {@code gapTimeout} expires.
+     *
+     * @param store       store to tail.
+     * @param offset      offset of this projector.
+     * @param lockManager lock manager to protect projection with.
+     * @param gapTimeout  max time to wait for the gap in event ids to be filled.
+     */
+    public Projector(@Nonnull JEventStore store, @Nonnull Offset offset, @Nonnull LockManager lockManager,
+                     @Nonnull Duration gapTimeout) {
+        super(store, offset, new NoopCommandBus(), Objects.requireNonNull(gapTimeout, "Gap timeout must not be null"));
+        this.lockManager = Objects.requireNonNull(lockManager, "LockManager must not be null");
+    }
+
     @Override
     void tailStore() {
         lockManager.doProtectedWrite(getKey(), super::tailStore);
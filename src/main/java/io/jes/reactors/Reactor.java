@@ -1,21 +1,28 @@
 package io.jes.reactors;
 
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import io.jes.Command;
 import io.jes.Event;
 import io.jes.JEventStore;
 import io.jes.bus.CommandBus;
 import io.jes.offset.Offset;
+import io.jes.provider.EventEnvelope;
 import io.jes.util.DaemonThreadFactory;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -33,6 +40,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 abstract class Reactor implements AutoCloseable {
 
     private static final long DELAY_MS = 100;
+    private static final int PAGE_SIZE = 1000;
 
     final Offset offset;
     @Getter(value = AccessLevel.PROTECTED)
@@ -45,10 +53,50 @@ abstract class Reactor implements AutoCloseable {
     private final ScheduledExecutorService executor = newSingleThreadScheduledExecutor(factory);
     private final Map<Class<? extends Event>, Consumer<? super Event>> reactors = new HashMap<>();
 
+    @Nullable
+    private final Duration gapTimeout;
+    // stored type names of events, the reactor reacts on, resolved on the first gap-safe read
+    private Set<String> typeNames;
+
     Reactor(@Nonnull JEventStore store, @Nonnull Offset offset, @Nonnull CommandBus bus) {
+        this(store, offset, bus, null);
+    }
+
+    /**
+     * Constructs reactor, that tails the store in gap-safe mode, if {@code gapTimeout} is given. Concurrent writers
+     * may commit events out of their id order, so the reader may observe event with id {@code n + 1} before event
+     * with id {@code n} is committed. In gap-safe mode the reactor doesn't handle events past the gap in ids until
+     * the gap is filled or {@code gapTimeout} expires (ids may be lost for good, i.e. by rolled back transactions).
+     * The gap is judged by the age of the event after it (see {@link io.jes.provider.EventEnvelope#created()}): ids
+     * of the gap were generated before that event was written, so the gap, older than {@code gapTimeout}, is not
+     * going to be filled. Thus the reactor, which replays old events, skips the old gaps at once, and waits at most
+     * {@code gapTimeout} for the recent ones. Events, written without creation time, are considered old.
+     * Note: gap-safe mode requires store with raw events access (see {@link JEventStore#readEnvelopesFrom(long, int)})
+     * and keeps id of the last handled event as the offset instead of the count of handled events, so offsets of
+     * these modes are not interchangeable.
+     * Also in gap-safe mode events of types, the reactor doesn't react on, are skipped by their stored type name
+     * (see {@link io.jes.provider.EventEnvelope#type()}) without deserialization. The reactor still reads every event
+     * id, so it's able to detect gaps. Without gap detection the reactor reads and deserializes all the events: its
+     * offset is a count of read events, that a filtered read (see {@link JEventStore#readFrom(long, Set)}) doesn't
+     * expose.
+     *
+     * @param store      store to tail.
+     * @param offset     offset of this reactor.
+     * @param bus        command bus to dispatch commands with.
+     * @param gapTimeout max time to wait for the gap in event ids to be filled, should exceed the longest write
+     *                   transaction plus the clock difference between the store and the reactor; if null, the store
+     *                   is tailed without gaps detection.
+     * @throws IllegalArgumentException if gapTimeout is negative.
+     */
+    Reactor(@Nonnull JEventStore store, @Nonnull Offset offset, @Nonnull CommandBus bus,
+            @Nullable Duration gapTimeout) {
         this.bus = Objects.requireNonNull(bus, "CommandBus must not be null");
         this.offset = Objects.requireNonNull(offset, "Offset must not be null");
         this.store = Objects.requireNonNull(store, "Event store must not be null");
+        if (gapTimeout != null && gapTimeout.isNegative()) {
+            throw new IllegalArgumentException("Gap timeout must not be negative. Actual: " + gapTimeout);
+        }
+        this.gapTimeout = gapTimeout;
 
         this.reactors.putAll(readReactors());
         executor.scheduleWithFixedDelay(this::tailStore, DELAY_MS, DELAY_MS, MILLISECONDS);
@@ -77,21 +125,84 @@ abstract class Reactor implements AutoCloseable {
 
     // think of better solution for tailing. mb CDC (https://github.com/debezium/debezium) for db backed stores?
     void tailStore() {
-        try (Stream<Event> eventStream = store.readFrom(offset.value(key))) {
-            eventStream.forEach(event -> {
-                final Consumer<? super Event> consumer = reactors.get(event.getClass());
-                if (consumer != null) {
-                    consumer.accept(event);
-                    log.trace("Handled {}", event.getClass().getSimpleName());
-                }
-                offset.increment(key);
-            });
+        try {
+            // read store by pages to keep every read transaction short, even if reactor lags far behind
+            long handled;
+            do {
+                handled = tailPage();
+            } while (handled == PAGE_SIZE);
         } catch (Exception e) {
             // we must not stop to try read store, if any exception happens
             log.error("Exception during event store tailing:", e);
         }
     }
 
+    private long tailPage() {
+        return gapTimeout == null ? tailEvents() : tailEnvelopes();
+    }
+
+    private long tailEvents() {
+        final LongAdder handled = new LongAdder();
+        try (Stream<Event> eventStream = store.readFrom(offset.value(key), PAGE_SIZE)) {
+            eventStream.forEach(event -> {
+                handle(event);
+                offset.increment(key);
+                handled.increment();
+            });
+        }
+        return handled.sum();
+    }
+
+    private long tailEnvelopes() {
+        long last = offset.value(key);
+        long handled = 0;
+        try (Stream<? extends EventEnvelope<?>> stream = store.readEnvelopesFrom(last, PAGE_SIZE)) {
+            final Iterator<? extends EventEnvelope<?>> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                final EventEnvelope<?> envelope = iterator.next();
+                if (envelope.id() > last + 1 && !isGapExpired(last + 1, envelope)) {
+                    // events past the gap are handled, when it's filled or expired
+                    break;
+                }
+                if (isReactedOn(envelope)) {
+                    handle(envelope.event());
+                }
+                offset.add(key, envelope.id() - last);
+                last = envelope.id();
+                handled++;
+            }
+        }
+        return handled;
+    }
+
+    private boolean isReactedOn(@Nonnull EventEnvelope<?> envelope) {
+        if (typeNames == null) {
+            typeNames = new HashSet<>();
+            for (Class<? extends Event> type : reactors.keySet()) {
+                typeNames.add(store.typeNameOf(type));
+            }
+        }
+        // events stored without type name (written before the type column was introduced) have to be deserialized
+        return envelope.type() == null || typeNames.contains(envelope.type());
+    }
+
+    private boolean isGapExpired(long from, @Nonnull EventEnvelope<?> next) {
+        final Instant created = next.created();
+        if (created != null && created.plus(Objects.requireNonNull(gapTimeout)).isAfter(Instant.now())) {
+            return false;
+        }
+        log.warn("Event ids [{}, {}) weren't committed in {}, skip them", from, next.id(), gapTimeout);
+        return true;
+    }
+
+    private void handle(@Nonnull Event event) {
+        final Consumer<? super Event> consumer = reactors.get(event.getClass());
+        if (consumer != null) {
+            consumer.accept(event);
+            log.trace("Handled {}", event.getClass().getSimpleName());
+        }
+    }
+
     @Override
     public void close() {
         executor.shutdown();
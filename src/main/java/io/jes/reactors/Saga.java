@@ -1,5 +1,6 @@
 package io.jes.reactors;
 
+import java.time.Duration;
 import java.util.Objects;
 import javax.annotation.Nonnull;
 
@@ -19,6 +20,22 @@ public class Saga extends Reactor {
         this.lockManager = Objects.requireNonNull(lockManager);
     }
 
+    /**
+     * Constructs saga, that tails the store in gap-safe mode (see {@link Reactor}): events past the gap in ids are not
+     * handled until the gap is filled or {@code gapTimeout} expires.
+     *
+     * @param store       store to tail.
+     * @param offset      offset of this saga.
+     * @param bus         command bus to dispatch commands with.
+     * @param lockManager lock manager to protect saga with.
+     * @param gapTimeout  max time to wait for the gap in event ids to be filled.
+     */
+    public Saga(@Nonnull JEventStore store, @Nonnull Offset offset, @Nonnull CommandBus bus,
+                @Nonnull LockManager lockManager, @Nonnull Duration gapTimeout) {
+        super(store, offset, bus, Objects.requireNonNull(gapTimeout, "Gap timeout must not be null"));
+        this.lockManager = Objects.requireNonNull(lockManager);
+    }
+
     @Override
     void tailStore() {
         lockManager.doProtectedWrite(getKey(), super::tailStore);
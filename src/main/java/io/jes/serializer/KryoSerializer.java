@@ -16,17 +16,20 @@ import io.jes.ex.SerializationException;
 class KryoSerializer<S> implements Serializer<S, byte[]> {
 
     private static final String NO_CLASS_KRYO_MESSAGE = "Unable to find class: ";
-    private final Kryo kryo = new Kryo();
+    // Kryo is not thread safe, while serializers are shared by concurrent readers and writers
+    private final ThreadLocal<Kryo> kryos = ThreadLocal.withInitial(KryoSerializer::newKryo);
 
-    KryoSerializer() {
+    private static Kryo newKryo() {
+        final Kryo kryo = new Kryo();
         kryo.setRegistrationRequired(false);
         kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        return kryo;
     }
 
     @Override
     public byte[] serialize(S toSerialize) {
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream(); Output output = new Output(baos)) {
-            kryo.writeClassAndObject(output, toSerialize);
+            kryos.get().writeClassAndObject(output, toSerialize);
             output.flush();
             return baos.toByteArray();
         } catch (Exception e) {
@@ -43,7 +46,7 @@ class KryoSerializer<S> implements Serializer<S, byte[]> {
              final Input input = new Input(bais, toDeserialize.length)) {
 
             //noinspection unchecked
-            return (S) kryo.readClassAndObject(input);
+            return (S) kryos.get().readClassAndObject(input);
         } catch (KryoException e) {
             final String message = e.getMessage();
             if (message != null && message.contains(NO_CLASS_KRYO_MESSAGE)) {
@@ -32,6 +32,34 @@ public class TypeRegistry implements SerializationOption {
         );
     }
 
+    /**
+     * Resolves persistent name of given type: registered alias, or the class name if type has no alias.
+     *
+     * @param clazz type to resolve name of.
+     * @return type name, never null.
+     */
+    @Nonnull
+    public String typeNameOf(@Nonnull Class<?> clazz) {
+        final String alias = aliases.get(requireNonNull(clazz, "Type class must be provided"));
+        return alias != null ? alias : clazz.getName();
+    }
+
+    /**
+     * Finds {@link TypeRegistry} among given serialization options.
+     *
+     * @param options serialization options.
+     * @return first provided registry, or new empty one, if there is no registry among options.
+     */
+    @Nonnull
+    public static TypeRegistry typeRegistryOf(@Nonnull SerializationOption... options) {
+        for (SerializationOption option : options) {
+            if (option instanceof TypeRegistry) {
+                return (TypeRegistry) option;
+            }
+        }
+        return new TypeRegistry();
+    }
+
     Map<Class<?>, String> getAliases() {
         return new HashMap<>(aliases);
     }
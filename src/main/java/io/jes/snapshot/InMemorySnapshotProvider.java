@@ -1,47 +1,99 @@
 package io.jes.snapshot;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
 import javax.annotation.Nonnull;
 
 import io.jes.Aggregate;
 
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link SnapshotProvider}, that keeps snapshots in the concurrent in-process cache. The cache is bounded by total
+ * weight of snapshots (by count of snapshots by default) and evicts them with frequency-aware W-TinyLFU policy, so
+ * snapshots of rarely read aggregates don't evict snapshots of hot ones.
+ * Snapshots may also expire after write, this bounds staleness of the cache, when snapshots are reset by other
+ * instances (see {@link TieredSnapshotProvider}).
+ */
 public class InMemorySnapshotProvider implements SnapshotProvider {
 
     private static final int MAX_CACHE_SIZE = 5000;
-    private final Map<UUID, Aggregate> cache;
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final TinyLfuCache<UUID, Entry> cache;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier clock;
 
     @SuppressWarnings("unused")
     public InMemorySnapshotProvider() {
         this(MAX_CACHE_SIZE);
     }
 
+    /**
+     * @param cacheSize max count of cached snapshots.
+     * @throws IllegalArgumentException if cacheSize is not positive.
+     */
     public InMemorySnapshotProvider(int cacheSize) {
-        this.cache = new LinkedHashMap<UUID, Aggregate>(cacheSize, .75f, true) {
-            @Override
-            public boolean removeEldestEntry(Map.Entry<UUID, Aggregate> eldest) {
-                return size() > cacheSize;
-            }
-        };
+        this(cacheSize, aggregate -> 1);
+    }
+
+    /**
+     * Constructs provider, that bounds the cache by total weight of snapshots, i.e. by their approximate size in bytes
+     * or by stream versions of aggregates ({@code Aggregate::streamVersion}).
+     *
+     * @param maxWeight max total weight of cached snapshots.
+     * @param weigher   weight of the snapshot, must not be negative.
+     * @throws IllegalArgumentException if maxWeight is not positive.
+     * @throws NullPointerException     if weigher is null.
+     */
+    public InMemorySnapshotProvider(long maxWeight, @Nonnull ToLongFunction<? super Aggregate> weigher) {
+        this(maxWeight, weigher, NEVER, System::nanoTime);
+    }
+
+    /**
+     * Constructs provider, which snapshots expire after given time since they were written.
+     *
+     * @param maxWeight        max total weight of cached snapshots.
+     * @param weigher          weight of the snapshot, must not be negative.
+     * @param expireAfterWrite time to keep the snapshot since it was written.
+     * @throws IllegalArgumentException if maxWeight or expireAfterWrite is not positive.
+     * @throws NullPointerException     if weigher or expireAfterWrite is null.
+     */
+    public InMemorySnapshotProvider(long maxWeight, @Nonnull ToLongFunction<? super Aggregate> weigher,
+                                    @Nonnull Duration expireAfterWrite) {
+        this(maxWeight, weigher, nanosOf(expireAfterWrite), System::nanoTime);
+    }
+
+    InMemorySnapshotProvider(long maxWeight, @Nonnull ToLongFunction<? super Aggregate> weigher,
+                             long expireAfterWriteNanos, @Nonnull LongSupplier clock) {
+        requireNonNull(weigher, "Weigher must not be null");
+        this.cache = new TinyLfuCache<>(maxWeight, entry -> weigher.applyAsLong(entry.aggregate));
+        this.expireAfterWriteNanos = expireAfterWriteNanos;
+        this.clock = requireNonNull(clock, "Clock must not be null");
     }
 
     @Nonnull
     @Override
     public <T extends Aggregate> T initialStateOf(@Nonnull UUID uuid, @Nonnull Class<T> type) {
-        final Aggregate aggregate = cache.get(Objects.requireNonNull(uuid, "Aggregate uuid must not be null"));
-        if (aggregate == null) {
+        final Entry entry = cache.get(Objects.requireNonNull(uuid, "Aggregate uuid must not be null"));
+        if (entry == null) {
+            return SnapshotProvider.super.initialStateOf(uuid, type);
+        }
+        if (isExpired(entry)) {
+            cache.remove(uuid);
             return SnapshotProvider.super.initialStateOf(uuid, type);
         }
         //noinspection unchecked
-        return (T) aggregate;
+        return (T) entry.aggregate;
     }
 
     @Nonnull
     @Override
     public <T extends Aggregate> T snapshot(@Nonnull T aggregate) {
-        cache.put(aggregate.uuid(), aggregate);
+        cache.put(aggregate.uuid(), new Entry(aggregate, clock.getAsLong()));
         return aggregate;
     }
 
@@ -50,4 +102,27 @@ public class InMemorySnapshotProvider implements SnapshotProvider {
         Objects.requireNonNull(uuid, "Uuid must not be null");
         cache.remove(uuid);
     }
+
+    private boolean isExpired(@Nonnull Entry entry) {
+        return expireAfterWriteNanos != NEVER && clock.getAsLong() - entry.writtenAt >= expireAfterWriteNanos;
+    }
+
+    private static long nanosOf(@Nonnull Duration expireAfterWrite) {
+        requireNonNull(expireAfterWrite, "Expire after write must not be null");
+        if (expireAfterWrite.isNegative() || expireAfterWrite.isZero()) {
+            throw new IllegalArgumentException("Expire after write must be positive. Actual: " + expireAfterWrite);
+        }
+        return expireAfterWrite.toNanos();
+    }
+
+    private static final class Entry {
+
+        private final Aggregate aggregate;
+        private final long writtenAt;
+
+        private Entry(@Nonnull Aggregate aggregate, long writtenAt) {
+            this.aggregate = aggregate;
+            this.writtenAt = writtenAt;
+        }
+    }
 }
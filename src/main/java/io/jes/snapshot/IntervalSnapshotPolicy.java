@@ -0,0 +1,61 @@
+package io.jes.snapshot;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import javax.annotation.Nonnull;
+
+import io.jes.Aggregate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link SnapshotPolicy}, that snapshots aggregate at most once per interval, see
+ * {@link SnapshotPolicy#minInterval(Duration)}.
+ */
+class IntervalSnapshotPolicy implements SnapshotPolicy {
+
+    // expired entries are purged, when count of tracked aggregates exceeds the threshold, which is doubled then, so
+    // the purge cost is amortized over the snapshots, tracked since the last purge
+    private static final int MIN_PURGE_THRESHOLD = 10_000;
+
+    private final long intervalNanos;
+    private final LongSupplier clock;
+    private final Map<UUID, Long> snapshotTimes = new ConcurrentHashMap<>();
+    private final AtomicInteger purgeThreshold = new AtomicInteger(MIN_PURGE_THRESHOLD);
+
+    IntervalSnapshotPolicy(@Nonnull Duration interval, @Nonnull LongSupplier clock) {
+        requireNonNull(interval, "Interval must not be null");
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("Interval must not be negative. Actual: " + interval);
+        }
+        this.intervalNanos = interval.toNanos();
+        this.clock = requireNonNull(clock, "Clock must not be null");
+    }
+
+    @Override
+    public boolean shouldSnapshot(@Nonnull Aggregate aggregate, long handled) {
+        final Long snapshotTime = snapshotTimes.get(aggregate.uuid());
+        return snapshotTime == null || clock.getAsLong() - snapshotTime >= intervalNanos;
+    }
+
+    @Override
+    public void onSnapshot(@Nonnull Aggregate aggregate) {
+        final long now = clock.getAsLong();
+        snapshotTimes.put(aggregate.uuid(), now);
+        final int threshold = purgeThreshold.get();
+        // only one thread purges at a time
+        if (snapshotTimes.size() > threshold && purgeThreshold.compareAndSet(threshold, Integer.MAX_VALUE)) {
+            snapshotTimes.values().removeIf(time -> now - time >= intervalNanos);
+            purgeThreshold.set((int) Math.min(Integer.MAX_VALUE - 1,
+                    Math.max(MIN_PURGE_THRESHOLD, 2L * snapshotTimes.size())));
+        }
+    }
+
+    int tracked() {
+        return snapshotTimes.size();
+    }
+}
@@ -3,6 +3,12 @@ package io.jes.snapshot;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import javax.annotation.Nonnull;
@@ -19,23 +25,43 @@ import io.jes.serializer.SerializerFactory;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import static io.jes.util.JdbcUtils.isUniqueViolation;
 import static io.jes.util.JdbcUtils.unwrapJdbcType;
 import static java.util.Objects.requireNonNull;
 
 @Slf4j
 public class JdbcSnapshotProvider<T> implements SnapshotProvider, AutoCloseable {
 
+    private static final int MAX_AGGREGATES_PER_QUERY = 500;
+
     private final DataSource dataSource;
+    private final DataSource readDataSource;
     private final SnapshotDDLProducer ddlProducer;
     private final Serializer<Aggregate, T> serializer;
 
     public JdbcSnapshotProvider(@Nonnull DataSource dataSource, @Nonnull Class<T> serializationType,
                                 @Nonnull SerializationOption... options) {
+        this(dataSource, dataSource, serializationType, options);
+    }
+
+    /**
+     * Constructs provider, that routes snapshot writes to the primary data source and snapshot reads to the read
+     * (replica) one. Stale snapshot is safe to read: events, written after the snapshot, are replayed on top of it.
+     *
+     * @param writeDataSource   primary data source, used for writes.
+     * @param readDataSource    data source, used for reads.
+     * @param serializationType type of aggregate serialization.
+     * @param options           serialization options.
+     * @throws BrokenStoreException if the snapshot store can't be created.
+     */
+    public JdbcSnapshotProvider(@Nonnull DataSource writeDataSource, @Nonnull DataSource readDataSource,
+                                @Nonnull Class<T> serializationType, @Nonnull SerializationOption... options) {
         try {
-            this.dataSource = requireNonNull(dataSource);
+            this.dataSource = requireNonNull(writeDataSource, "Write DataSource must not be null");
+            this.readDataSource = requireNonNull(readDataSource, "Read DataSource must not be null");
             this.serializer = SerializerFactory.newAggregateSerializer(serializationType, options);
 
-            try (final Connection connection = dataSource.getConnection()) {
+            try (final Connection connection = writeDataSource.getConnection()) {
                 this.ddlProducer = DDLFactory.newSnapshotDDLProducer(connection);
                 createSnapshotStore(connection, ddlProducer.createSnapshotStore(serializationType));
             }
@@ -58,7 +84,7 @@ public class JdbcSnapshotProvider<T> implements SnapshotProvider, AutoCloseable
     @Override
     @SneakyThrows
     public <A extends Aggregate> A initialStateOf(@Nonnull UUID uuid, @Nonnull Class<A> type) {
-        final Aggregate aggregate = findAggregateByUuid(uuid);
+        final Aggregate aggregate = findAggregateByUuid(uuid, readDataSource);
         if (aggregate == null) {
             return SnapshotProvider.super.initialStateOf(uuid, type);
         }
@@ -66,30 +92,96 @@ public class JdbcSnapshotProvider<T> implements SnapshotProvider, AutoCloseable
         return (A) aggregate;
     }
 
+    /**
+     * {@inheritDoc}
+     * {@implNote snapshots are read with one query per {@link #MAX_AGGREGATES_PER_QUERY} aggregates}.
+     */
+    @Nonnull
+    @Override
+    public <A extends Aggregate> Map<UUID, A> initialStatesOf(@Nonnull Collection<UUID> uuids,
+                                                              @Nonnull Class<A> type) {
+        requireNonNull(uuids, "Aggregate uuids must not be null");
+        final Map<UUID, A> states = new HashMap<>();
+        final List<UUID> chunk = new ArrayList<>();
+        for (UUID uuid : uuids) {
+            chunk.add(requireNonNull(uuid, "Aggregate uuid must not be null"));
+            if (chunk.size() == MAX_AGGREGATES_PER_QUERY) {
+                findAggregatesByUuids(chunk, states);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            findAggregatesByUuids(chunk, states);
+        }
+        for (UUID uuid : uuids) {
+            if (!states.containsKey(uuid)) {
+                states.put(uuid, SnapshotProvider.super.initialStateOf(uuid, type));
+            }
+        }
+        return states;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <A extends Aggregate> void findAggregatesByUuids(@Nonnull List<UUID> uuids, @Nonnull Map<UUID, A> states) {
+        execute(readDataSource, connection -> {
+            final String sql = ddlProducer.queryAggregatesByUuids(uuids.size());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < uuids.size(); i++) {
+                    statement.setObject(i + 1, uuids.get(i));
+                }
+                try (final ResultSet set = statement.executeQuery()) {
+                    while (set.next()) {
+                        final A aggregate = (A) serializer.deserialize(
+                                unwrapJdbcType(set.getObject(ddlProducer.contentName()))
+                        );
+                        states.put(aggregate.uuid(), aggregate);
+                    }
+                }
+            }
+            return states;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * {@implNote snapshot is written with a single upsert statement, conditional on the aggregate stream version, so
+     * the snapshot of older stream version never overwrites the newer one}.
+     */
     @Nonnull
     @Override
-    @SneakyThrows
     @SuppressWarnings("squid:S2077")
     public <A extends Aggregate> A snapshot(@Nonnull A aggregate) {
-        // check if we already have a snapshot for that aggregate
-        final boolean snapshotExists = findAggregateByUuid(aggregate.uuid()) != null;
-        final String sql = snapshotExists ? ddlProducer.updateAggregate() : ddlProducer.insertAggregate();
-        final Integer affectedCount = execute(connection -> {
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                statement.setObject(1, serializer.serialize(aggregate));
-                statement.setObject(2, aggregate.uuid());
-                return statement.executeUpdate();
+        final T data = serializer.serialize(requireNonNull(aggregate, "Aggregate must not be null"));
+        final Integer affectedCount = execute(dataSource, connection -> {
+            try {
+                return upsertAggregate(connection, aggregate, data);
+            } catch (SQLException e) {
+                // MERGE isn't atomic on some databases: concurrent writer may insert the same snapshot first
+                if (!isUniqueViolation(e)) {
+                    throw e;
+                }
+                return upsertAggregate(connection, aggregate, data);
             }
         });
-        log.debug(" {} Aggregate snapshot successfully {}", affectedCount, snapshotExists ? "updated" : "created");
+        log.debug(" {} Aggregate snapshot successfully upserted", affectedCount);
         return aggregate;
     }
 
+    private int upsertAggregate(@Nonnull Connection connection, @Nonnull Aggregate aggregate, @Nonnull T data)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(ddlProducer.upsertAggregate())) {
+            statement.setObject(1, aggregate.uuid());
+            statement.setLong(2, aggregate.streamVersion());
+            statement.setObject(3, data);
+            return statement.executeUpdate();
+        }
+    }
+
     @Override
     @SneakyThrows
     public void reset(@Nonnull UUID uuid) {
         Objects.requireNonNull(uuid);
-        execute(connection -> {
+        execute(dataSource, connection -> {
             try (PreparedStatement statement = connection.prepareStatement(ddlProducer.deleteAggregates())) {
                 statement.setObject(1, uuid);
                 final int deletedRows = statement.executeUpdate();
@@ -101,8 +193,8 @@ public class JdbcSnapshotProvider<T> implements SnapshotProvider, AutoCloseable
 
     @Nullable
     @SneakyThrows
-    private Aggregate findAggregateByUuid(@Nonnull UUID uuid) {
-        return execute(connection -> {
+    private Aggregate findAggregateByUuid(@Nonnull UUID uuid, @Nonnull DataSource source) {
+        return execute(source, connection -> {
             try (PreparedStatement statement = connection.prepareStatement(ddlProducer.queryAggregateByUuid())) {
                 statement.setObject(1, Objects.requireNonNull(uuid, "Aggregate uuid must not be null"));
                 final ResultSet set = statement.executeQuery();
@@ -115,8 +207,8 @@ public class JdbcSnapshotProvider<T> implements SnapshotProvider, AutoCloseable
     }
 
     @SneakyThrows
-    private <Y> Y execute(@Nonnull ThrowableFunction<Connection, Y> consumer) {
-        try (Connection connection = dataSource.getConnection()) {
+    private <Y> Y execute(@Nonnull DataSource source, @Nonnull ThrowableFunction<Connection, Y> consumer) {
+        try (Connection connection = source.getConnection()) {
             return Objects.requireNonNull(consumer, "Consumer must not be null").apply(connection);
         } catch (Exception e) {
             throw new BrokenStoreException(e);
@@ -125,9 +217,16 @@ public class JdbcSnapshotProvider<T> implements SnapshotProvider, AutoCloseable
 
     @Override
     public void close() {
-        if (dataSource instanceof AutoCloseable) {
+        closeDataSource(dataSource);
+        if (readDataSource != dataSource) {
+            closeDataSource(readDataSource);
+        }
+    }
+
+    private void closeDataSource(@Nonnull DataSource source) {
+        if (source instanceof AutoCloseable) {
             try {
-                ((AutoCloseable) dataSource).close();
+                ((AutoCloseable) source).close();
             } catch (Exception e) {
                 log.error("Failed to close resource:", e);
             }
@@ -1,11 +1,15 @@
 package io.jes.snapshot;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentMap;
 import javax.annotation.Nonnull;
 
 import org.redisson.api.LocalCachedMapOptions;
+import org.redisson.api.RMap;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.Codec;
 import org.redisson.codec.JsonJacksonCodec;
@@ -15,7 +19,7 @@ import io.jes.Aggregate;
 public class RedissonSnapshotProvider implements SnapshotProvider {
 
     private static final int MAX_CACHE_SIZE = 5000;
-    private final ConcurrentMap<UUID, Aggregate> redisCache;
+    private final RMap<UUID, Aggregate> redisCache;
 
     public RedissonSnapshotProvider(@Nonnull RedissonClient redissonClient) {
         this(redissonClient, new JsonJacksonCodec(), MAX_CACHE_SIZE);
@@ -42,6 +46,26 @@ public class RedissonSnapshotProvider implements SnapshotProvider {
         return (T) aggregate;
     }
 
+    /**
+     * {@inheritDoc}
+     * {@implNote snapshots are fetched with one multi-get}.
+     */
+    @Nonnull
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Aggregate> Map<UUID, T> initialStatesOf(@Nonnull Collection<UUID> uuids,
+                                                              @Nonnull Class<T> type) {
+        final Map<UUID, Aggregate> cached = redisCache.getAll(new HashSet<>(
+                Objects.requireNonNull(uuids, "Aggregate uuids must not be null")
+        ));
+        final Map<UUID, T> states = new HashMap<>();
+        for (UUID uuid : uuids) {
+            final Aggregate aggregate = cached.get(uuid);
+            states.put(uuid, aggregate != null ? (T) aggregate : SnapshotProvider.super.initialStateOf(uuid, type));
+        }
+        return states;
+    }
+
     @Nonnull
     @Override
     public <T extends Aggregate> T snapshot(@Nonnull T aggregate) {
@@ -0,0 +1,138 @@
+package io.jes.snapshot;
+
+import java.time.Duration;
+import javax.annotation.Nonnull;
+
+import io.jes.Aggregate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Policy, that decides whether {@link io.jes.AggregateStore} should snapshot just restored aggregate. Every snapshot is
+ * a write into the {@link SnapshotProvider}, so snapshotting aggregates, that barely changed, makes the read path
+ * slower, than replaying a few events on the next read.
+ */
+@FunctionalInterface
+public interface SnapshotPolicy {
+
+    /**
+     * @param aggregate just restored aggregate.
+     * @param handled   count of events, applied on top of the aggregate initial state (last snapshot), always
+     *                  positive.
+     * @return true, if the aggregate should be snapshotted.
+     */
+    boolean shouldSnapshot(@Nonnull Aggregate aggregate, long handled);
+
+    /**
+     * Called by {@link io.jes.AggregateStore}, once the aggregate is snapshotted, so policies, that track snapshots,
+     * don't count the ones, vetoed by other combined policies. Does nothing by default.
+     *
+     * @param aggregate just snapshotted aggregate.
+     */
+    default void onSnapshot(@Nonnull Aggregate aggregate) {
+    }
+
+    /**
+     * @param other policy to combine with.
+     * @return policy, that snapshots aggregate only if both policies do.
+     * @throws NullPointerException if other is null.
+     */
+    @Nonnull
+    default SnapshotPolicy and(@Nonnull SnapshotPolicy other) {
+        requireNonNull(other, "Snapshot policy must not be null");
+        final SnapshotPolicy self = this;
+        return new SnapshotPolicy() {
+            @Override
+            public boolean shouldSnapshot(@Nonnull Aggregate aggregate, long handled) {
+                return self.shouldSnapshot(aggregate, handled) && other.shouldSnapshot(aggregate, handled);
+            }
+
+            @Override
+            public void onSnapshot(@Nonnull Aggregate aggregate) {
+                self.onSnapshot(aggregate);
+                other.onSnapshot(aggregate);
+            }
+        };
+    }
+
+    /**
+     * @param other policy to combine with.
+     * @return policy, that snapshots aggregate if any of policies does.
+     * @throws NullPointerException if other is null.
+     */
+    @Nonnull
+    default SnapshotPolicy or(@Nonnull SnapshotPolicy other) {
+        requireNonNull(other, "Snapshot policy must not be null");
+        final SnapshotPolicy self = this;
+        return new SnapshotPolicy() {
+            @Override
+            public boolean shouldSnapshot(@Nonnull Aggregate aggregate, long handled) {
+                return self.shouldSnapshot(aggregate, handled) || other.shouldSnapshot(aggregate, handled);
+            }
+
+            @Override
+            public void onSnapshot(@Nonnull Aggregate aggregate) {
+                self.onSnapshot(aggregate);
+                other.onSnapshot(aggregate);
+            }
+        };
+    }
+
+    /**
+     * @return policy, that snapshots aggregate on every read, that applied at least one event (default).
+     */
+    @Nonnull
+    static SnapshotPolicy always() {
+        return (aggregate, handled) -> true;
+    }
+
+    /**
+     * @return policy, that never snapshots aggregates on read, i.e. when snapshots are taken elsewhere.
+     */
+    @Nonnull
+    static SnapshotPolicy never() {
+        return (aggregate, handled) -> false;
+    }
+
+    /**
+     * @param events min count of events, applied since the last snapshot.
+     * @return policy, that snapshots aggregate once {@code events} were applied on top of it's last snapshot.
+     * @throws IllegalArgumentException if events is not positive.
+     */
+    @Nonnull
+    static SnapshotPolicy everyEvents(long events) {
+        if (events <= 0) {
+            throw new IllegalArgumentException("Count of events must be greater than 0. Actual: " + events);
+        }
+        return (aggregate, handled) -> handled >= events;
+    }
+
+    /**
+     * @param length min length of the aggregate event stream.
+     * @return policy, that snapshots only aggregates with event streams of at least {@code length} events: short
+     *      streams are cheaper to replay, than to snapshot.
+     * @throws IllegalArgumentException if length is negative.
+     */
+    @Nonnull
+    static SnapshotPolicy minStreamLength(long length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Stream length must not be negative. Actual: " + length);
+        }
+        return (aggregate, handled) -> aggregate.streamVersion() >= length;
+    }
+
+    /**
+     * Note: time of the last snapshot is tracked per aggregate in memory of this process. Only snapshots, actually
+     * taken (see {@link #onSnapshot(Aggregate)}), are tracked.
+     *
+     * @param interval min time between snapshots of the same aggregate.
+     * @return policy, that snapshots aggregate at most once per {@code interval}.
+     * @throws NullPointerException     if interval is null.
+     * @throws IllegalArgumentException if interval is negative.
+     */
+    @Nonnull
+    static SnapshotPolicy minInterval(@Nonnull Duration interval) {
+        return new IntervalSnapshotPolicy(interval, System::nanoTime);
+    }
+
+}
@@ -1,6 +1,9 @@
 package io.jes.snapshot;
 
 import java.lang.reflect.Constructor;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 import javax.annotation.Nonnull;
@@ -29,6 +32,25 @@ public interface SnapshotProvider {
         }
     }
 
+    /**
+     * Returns initial states for many aggregates of given {@literal type} at once.
+     * Note: default implementation resolves initial states one by one.
+     *
+     * @param uuids are event stream (aggregate) identifiers.
+     * @param type  is the class of aggregates.
+     * @param <T>   is the type of agregate.
+     * @return aggregates of type {@literal T} initialized with initial state, mapped by given identifiers.
+     */
+    @Nonnull
+    default <T extends Aggregate> Map<UUID, T> initialStatesOf(@Nonnull Collection<UUID> uuids,
+                                                               @Nonnull Class<T> type) {
+        final Map<UUID, T> states = new HashMap<>();
+        for (UUID uuid : uuids) {
+            states.put(uuid, initialStateOf(uuid, type));
+        }
+        return states;
+    }
+
     @Nonnull
     default <T extends Aggregate> T snapshot(@Nonnull T aggregate) {
         return Objects.requireNonNull(aggregate, "Aggregate must not be null");
@@ -1,7 +1,10 @@
 package io.jes.snapshot;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 
 import io.jes.Event;
@@ -20,4 +23,38 @@ public interface SnapshotReader {
      */
     Collection<Event> readBy(@Nonnull UUID uuid, long skip);
 
+    /**
+     * Returns events of many event streams at once. Skips first events of each stream, see
+     * {@link #readBy(UUID, long)}. Note: default implementation reads streams one by one.
+     *
+     * @param streams event stream identifiers mapped to count of events to skip in that stream.
+     * @return events of each stream mapped by stream identifier. Streams without (not skipped) events are mapped to
+     *      empty collections.
+     * @throws NullPointerException if streams is null.
+     */
+    default Map<UUID, Collection<Event>> readBy(@Nonnull Map<UUID, Long> streams) {
+        final Map<UUID, Collection<Event>> events = new HashMap<>();
+        for (Map.Entry<UUID, Long> stream : streams.entrySet()) {
+            events.put(stream.getKey(), readBy(stream.getKey(), stream.getValue()));
+        }
+        return events;
+    }
+
+    /**
+     * Lazy alternative of {@link #readBy(UUID, long)}: returns events of the stream one by one, without collecting
+     * the whole stream in memory. Note: default implementation reads the whole stream via
+     * {@link #readBy(UUID, long)}.
+     *
+     * <p>A Stream potentially wraps underlying data store-specific resources and must, therefore, be closed after
+     * usage.
+     *
+     * @param uuid identifier of event uuid to read.
+     * @param skip events count to skip.
+     * @return {@link Stream} of events stored in that {@literal EventStore}, grouped by {@literal uuid}.
+     * @throws NullPointerException if uuid is null.
+     */
+    default Stream<Event> readStreamBy(@Nonnull UUID uuid, long skip) {
+        return readBy(uuid, skip).stream();
+    }
+
 }
@@ -0,0 +1,198 @@
+package io.jes.snapshot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
+
+import org.redisson.api.RTopic;
+import org.redisson.api.listener.MessageListener;
+
+import io.jes.Aggregate;
+import lombok.extern.slf4j.Slf4j;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link SnapshotProvider}, that stacks other providers into tiers, ordered from the fastest to the slowest one, i.e.
+ * {@link InMemorySnapshotProvider}, {@link RedissonSnapshotProvider}, {@link JdbcSnapshotProvider}.
+ * Snapshots are read through: tiers are queried one by one till the snapshot is found, then it's populated upward into
+ * all faster tiers, that missed it. So the common read never leaves the process, and the cold one still doesn't replay
+ * the whole event stream. Snapshots are written through all the tiers, wrap slow tier into
+ * {@link WriteBehindSnapshotProvider} to write it behind. Reset invalidates the snapshot in all the tiers.
+ * Note: aggregate of zero stream version (i.e. fresh instance, returned by a tier on miss) is not considered
+ * a snapshot.
+ * Reset reaches only the tiers of this instance, so faster (local) tiers of other instances keep the reset snapshot
+ * and keep returning it. When several instances share the slowest tier, pass the invalidation topic: reset publishes
+ * uuid of the aggregate into it, and each subscribed instance resets the snapshot in all its tiers, except the slowest
+ * (shared) one. Invalidation is best effort: the message is lost while instance is disconnected from Redis and may
+ * overtake concurrent read, that populates local tier back with the reset snapshot. So local tiers should expire
+ * snapshots anyway, see {@link InMemorySnapshotProvider#InMemorySnapshotProvider(long, ToLongFunction, Duration)}.
+ * Tiers are not closed by this provider, {@link #close()} only unsubscribes it from the invalidation topic.
+ */
+@Slf4j
+public class TieredSnapshotProvider implements SnapshotProvider, AutoCloseable {
+
+    private final List<SnapshotProvider> tiers;
+    private final RTopic invalidations;
+    private final int listenerId;
+
+    /**
+     * @param tiers snapshot providers, ordered from the fastest to the slowest one.
+     * @throws NullPointerException     if tiers or any of them is null.
+     * @throws IllegalArgumentException if tiers are empty.
+     */
+    public TieredSnapshotProvider(@Nonnull SnapshotProvider... tiers) {
+        this.tiers = validated(tiers);
+        this.invalidations = null;
+        this.listenerId = 0;
+    }
+
+    /**
+     * Constructs provider, that invalidates faster tiers of other instances through given topic.
+     *
+     * @param invalidations topic, shared by all the instances, to publish and receive uuids of reset aggregates.
+     * @param tiers         snapshot providers, ordered from the fastest to the slowest one.
+     * @throws NullPointerException     if invalidations, tiers or any of them is null.
+     * @throws IllegalArgumentException if tiers are empty.
+     */
+    public TieredSnapshotProvider(@Nonnull RTopic invalidations, @Nonnull SnapshotProvider... tiers) {
+        this.tiers = validated(tiers);
+        this.invalidations = requireNonNull(invalidations, "Invalidation topic must not be null");
+        this.listenerId = invalidations.addListener(String.class, (MessageListener<String>) this::onInvalidation);
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Aggregate> T initialStateOf(@Nonnull UUID uuid, @Nonnull Class<T> type) {
+        requireNonNull(uuid, "Uuid must not be null");
+        final int last = tiers.size() - 1;
+        for (int tier = 0; tier < last; tier++) {
+            final T state = tiers.get(tier).initialStateOf(uuid, type);
+            if (isSnapshot(state)) {
+                populate(tier, state);
+                return state;
+            }
+        }
+        final T state = tiers.get(last).initialStateOf(uuid, type);
+        if (isSnapshot(state)) {
+            populate(last, state);
+        }
+        return state;
+    }
+
+    /**
+     * Each tier is queried at once for all aggregates, missed by the faster tiers.
+     */
+    @Nonnull
+    @Override
+    public <T extends Aggregate> Map<UUID, T> initialStatesOf(@Nonnull Collection<UUID> uuids,
+                                                              @Nonnull Class<T> type) {
+        requireNonNull(uuids, "Uuids must not be null");
+        final Map<UUID, T> states = new HashMap<>(uuids.size());
+        Collection<UUID> missed = uuids;
+        for (int tier = 0; tier < tiers.size() && !missed.isEmpty(); tier++) {
+            final boolean last = tier == tiers.size() - 1;
+            final Map<UUID, T> found = tiers.get(tier).initialStatesOf(missed, type);
+            final List<UUID> stillMissed = new ArrayList<>();
+            for (UUID uuid : missed) {
+                final T state = found.get(uuid);
+                if (isSnapshot(state)) {
+                    populate(tier, state);
+                    states.put(uuid, state);
+                } else if (last) {
+                    states.put(uuid, state != null ? state : SnapshotProvider.super.initialStateOf(uuid, type));
+                } else {
+                    stillMissed.add(uuid);
+                }
+            }
+            missed = stillMissed;
+        }
+        return states;
+    }
+
+    /**
+     * Writes snapshot through all the tiers, from the slowest to the fastest one, so that faster tier never keeps
+     * the snapshot, that slower tiers failed to write.
+     *
+     * @param aggregate aggregate to snapshot.
+     * @param <T>       type of aggregate.
+     * @return given aggregate.
+     * @throws NullPointerException if aggregate is null.
+     */
+    @Nonnull
+    @Override
+    public <T extends Aggregate> T snapshot(@Nonnull T aggregate) {
+        requireNonNull(aggregate, "Aggregate must not be null");
+        for (int tier = tiers.size() - 1; tier >= 0; tier--) {
+            tiers.get(tier).snapshot(aggregate);
+        }
+        return aggregate;
+    }
+
+    /**
+     * Resets snapshot in all the tiers, from the slowest to the fastest one, so that faster tier can't be populated
+     * back with the snapshot, that is being reset. Then publishes uuid of the aggregate into the invalidation topic,
+     * if any, so other instances reset their faster tiers too.
+     */
+    @Override
+    public void reset(@Nonnull UUID uuid) {
+        requireNonNull(uuid, "Uuid must not be null");
+        for (int tier = tiers.size() - 1; tier >= 0; tier--) {
+            tiers.get(tier).reset(uuid);
+        }
+        if (invalidations != null) {
+            invalidations.publish(uuid.toString());
+        }
+    }
+
+    /**
+     * Unsubscribes from the invalidation topic, if any. Tiers are not closed.
+     */
+    @Override
+    public void close() {
+        if (invalidations != null) {
+            invalidations.removeListener(listenerId);
+        }
+    }
+
+    private void onInvalidation(@Nonnull CharSequence channel, @Nonnull String message) {
+        try {
+            final UUID uuid = UUID.fromString(message);
+            for (int tier = tiers.size() - 2; tier >= 0; tier--) {
+                tiers.get(tier).reset(uuid);
+            }
+        } catch (Exception e) {
+            log.error("Failed to invalidate snapshot {} on channel {}", message, channel, e);
+        }
+    }
+
+    private void populate(int foundAt, @Nonnull Aggregate snapshot) {
+        for (int tier = foundAt - 1; tier >= 0; tier--) {
+            tiers.get(tier).snapshot(snapshot);
+        }
+    }
+
+    @Nonnull
+    private static List<SnapshotProvider> validated(@Nonnull SnapshotProvider[] tiers) {
+        requireNonNull(tiers, "Tiers must not be null");
+        if (tiers.length == 0) {
+            throw new IllegalArgumentException("At least one tier must be provided");
+        }
+        for (SnapshotProvider tier : tiers) {
+            requireNonNull(tier, "Tier must not be null");
+        }
+        return unmodifiableList(new ArrayList<>(asList(tiers)));
+    }
+
+    private static boolean isSnapshot(Aggregate state) {
+        return state != null && state.streamVersion() > 0;
+    }
+}
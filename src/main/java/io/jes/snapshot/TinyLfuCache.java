@@ -0,0 +1,263 @@
+package io.jes.snapshot;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Concurrent cache, bounded by total weight of entries, with W-TinyLFU eviction policy. Keys are spread over
+ * independently locked segments. Each segment keeps new entries in a small LRU window, entries evicted from the window
+ * are admitted into the main LRU region only if they are accessed more frequently, than the main region victim.
+ * Access frequencies are estimated with count-min sketch, that is periodically halved, so the history ages out. Thus
+ * entries, that are accessed only once (i.e. full scans), can't evict frequently accessed ones.
+ *
+ * @param <K> type of keys.
+ * @param <V> type of values.
+ */
+class TinyLfuCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_WEIGHT = 64;
+
+    private final Segment<K, V>[] segments;
+    private final ToLongFunction<? super V> weigher;
+
+    /**
+     * @param maxWeight max total weight of cached entries.
+     * @param weigher   weight of the value, must not be negative.
+     * @throws IllegalArgumentException if maxWeight is not positive.
+     * @throws NullPointerException     if weigher is null.
+     */
+    @SuppressWarnings("unchecked")
+    TinyLfuCache(long maxWeight, @Nonnull ToLongFunction<? super V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Max weight must be greater than 0. Actual: " + maxWeight);
+        }
+        this.weigher = requireNonNull(weigher, "Weigher must not be null");
+        int count = 1;
+        while (count < MAX_SEGMENTS && maxWeight / (count * 2) >= MIN_SEGMENT_WEIGHT) {
+            count *= 2;
+        }
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(maxWeight / count);
+        }
+    }
+
+    @Nullable
+    V get(@Nonnull K key) {
+        return segmentFor(key).get(key);
+    }
+
+    /**
+     * Note: the value may be rejected by admission policy or if it's heavier, than the cache segment.
+     */
+    void put(@Nonnull K key, @Nonnull V value) {
+        final long weight = weigher.applyAsLong(value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must not be negative. Actual: " + weight);
+        }
+        segmentFor(key).put(key, value, weight);
+    }
+
+    void remove(@Nonnull K key) {
+        segmentFor(key).remove(key);
+    }
+
+    long weight() {
+        long weight = 0;
+        for (Segment<K, V> segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    @Nonnull
+    private Segment<K, V> segmentFor(@Nonnull K key) {
+        return segments[spread(key.hashCode()) & (segments.length - 1)];
+    }
+
+    private static int spread(int hash) {
+        final int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    private static final class Node<V> {
+
+        private final V value;
+        private final long weight;
+
+        private Node(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Segment<K, V> {
+
+        // access-ordered maps, eldest entry is the least recently used one
+        private final LinkedHashMap<K, Node<V>> window = new LinkedHashMap<>(16, .75f, true);
+        private final LinkedHashMap<K, Node<V>> main = new LinkedHashMap<>(16, .75f, true);
+        private final FrequencySketch sketch;
+        private final long maxWindowWeight;
+        private final long maxMainWeight;
+
+        private long windowWeight;
+        private long mainWeight;
+
+        private Segment(long maxWeight) {
+            this.maxWindowWeight = Math.max(1, maxWeight / 100);
+            this.maxMainWeight = maxWeight - maxWindowWeight;
+            this.sketch = new FrequencySketch(maxWeight);
+        }
+
+        private synchronized V get(K key) {
+            sketch.increment(key.hashCode());
+            Node<V> node = window.get(key);
+            if (node == null) {
+                node = main.get(key);
+            }
+            return node != null ? node.value : null;
+        }
+
+        private synchronized void put(K key, V value, long weight) {
+            sketch.increment(key.hashCode());
+            final Node<V> node = new Node<>(value, weight);
+            final Node<V> replaced = main.get(key);
+            if (replaced != null && mainWeight - replaced.weight + weight <= maxMainWeight) {
+                main.put(key, node);
+                mainWeight += weight - replaced.weight;
+                return;
+            }
+            remove(key);
+            if (weight > maxWindowWeight + maxMainWeight) {
+                return;
+            }
+            window.put(key, node);
+            windowWeight += weight;
+            while (windowWeight > maxWindowWeight) {
+                final Iterator<Map.Entry<K, Node<V>>> eldest = window.entrySet().iterator();
+                final Map.Entry<K, Node<V>> candidate = eldest.next();
+                eldest.remove();
+                windowWeight -= candidate.getValue().weight;
+                admit(candidate.getKey(), candidate.getValue());
+            }
+        }
+
+        /**
+         * Victims are picked from the least recently used entries of the main region, till they free enough space,
+         * and evicted only if the candidate is accessed more frequently, than each of them.
+         */
+        private void admit(K key, Node<V> candidate) {
+            final int frequency = sketch.frequency(key.hashCode());
+            final List<K> victims = new ArrayList<>();
+            long freed = 0;
+            final Iterator<Map.Entry<K, Node<V>>> eldest = main.entrySet().iterator();
+            while (mainWeight - freed + candidate.weight > maxMainWeight) {
+                if (!eldest.hasNext()) {
+                    return;
+                }
+                final Map.Entry<K, Node<V>> victim = eldest.next();
+                if (frequency <= sketch.frequency(victim.getKey().hashCode())) {
+                    // candidate is rejected, main region is not changed
+                    return;
+                }
+                victims.add(victim.getKey());
+                freed += victim.getValue().weight;
+            }
+            for (K victim : victims) {
+                main.remove(victim);
+            }
+            mainWeight -= freed;
+            main.put(key, candidate);
+            mainWeight += candidate.weight;
+        }
+
+        private synchronized void remove(K key) {
+            final Node<V> windowNode = window.remove(key);
+            if (windowNode != null) {
+                windowWeight -= windowNode.weight;
+            }
+            final Node<V> mainNode = main.remove(key);
+            if (mainNode != null) {
+                mainWeight -= mainNode.weight;
+            }
+        }
+
+        private synchronized long weight() {
+            return windowWeight + mainWeight;
+        }
+    }
+
+    /**
+     * Count-min sketch with 4 rows of counters, saturated at 15: estimates access frequency of the key. After
+     * {@code 10 * width} increments all counters are halved.
+     */
+    static final class FrequencySketch {
+
+        private static final int ROWS = 4;
+        private static final int MAX_COUNTER = 15;
+        private static final int MIN_WIDTH = 256;
+        private static final int MAX_WIDTH = 1 << 14;
+        private static final int[] SEEDS = {0x97CB3127, 0xB7E15163, 0x5BD1E995, 0x85EBCA6B};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int size;
+
+        FrequencySketch(long expectedKeys) {
+            int width = MIN_WIDTH;
+            // wider sketch has less collisions: frequencies of different keys are less overestimated
+            while (width < expectedKeys * 4 && width < MAX_WIDTH) {
+                width *= 2;
+            }
+            this.table = new byte[ROWS][width];
+            this.mask = width - 1;
+            this.sampleSize = width * 10;
+        }
+
+        void increment(int hash) {
+            boolean incremented = false;
+            for (int row = 0; row < ROWS; row++) {
+                final int index = indexOf(hash, row);
+                if (table[row][index] < MAX_COUNTER) {
+                    table[row][index]++;
+                    incremented = true;
+                }
+            }
+            if (incremented && ++size == sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNTER;
+            for (int row = 0; row < ROWS; row++) {
+                frequency = Math.min(frequency, table[row][indexOf(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int row) {
+            final int mixed = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % ROWS];
+            return (mixed ^ (mixed >>> 15)) & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            size /= 2;
+        }
+    }
+}
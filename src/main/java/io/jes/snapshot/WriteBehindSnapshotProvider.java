@@ -0,0 +1,195 @@
+package io.jes.snapshot;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+import io.jes.Aggregate;
+import io.jes.util.DaemonThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link SnapshotProvider}, that writes snapshots into the underlying provider asynchronously (write-behind), so that
+ * snapshot writes don't add to the read latency of {@link io.jes.AggregateStore}.
+ * Snapshots are queued into the bounded queue and written by the background thread. Repeated snapshots of the same
+ * aggregate, that are still pending, are coalesced: only the one of the latest stream version is written. When the
+ * queue is full, new snapshots are dropped instead of blocking the caller: missed snapshot is taken on the next read.
+ * Note: snapshots are read from the underlying provider, pending snapshots are not visible to readers.
+ * Reset of the snapshot waits for it's write in progress, so the reset snapshot is never written back.
+ */
+@Slf4j
+public class WriteBehindSnapshotProvider implements SnapshotProvider, AutoCloseable {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    private static final long IDLE_POLL_MS = 100;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+    private static final int LOCK_STRIPES = 64;
+
+    private final SnapshotProvider provider;
+    private final BlockingQueue<UUID> queue;
+    private final Map<UUID, Aggregate> pending = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final ExecutorService executor;
+    // write and reset of the same snapshot are exclusive
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private volatile boolean closed;
+
+    public WriteBehindSnapshotProvider(@Nonnull SnapshotProvider provider) {
+        this(provider, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param provider      underlying provider to write snapshots into.
+     * @param queueCapacity max count of aggregates with pending snapshots.
+     * @throws NullPointerException     if provider is null.
+     * @throws IllegalArgumentException if queueCapacity is not positive.
+     */
+    public WriteBehindSnapshotProvider(@Nonnull SnapshotProvider provider, int queueCapacity) {
+        this.provider = requireNonNull(provider, "Snapshot provider must not be null");
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be greater than 0. Actual: " + queueCapacity);
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory(getClass().getSimpleName()));
+        this.executor.execute(this::flushLoop);
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Aggregate> T initialStateOf(@Nonnull UUID uuid, @Nonnull Class<T> type) {
+        return provider.initialStateOf(uuid, type);
+    }
+
+    @Nonnull
+    @Override
+    public <T extends Aggregate> Map<UUID, T> initialStatesOf(@Nonnull Collection<UUID> uuids,
+                                                              @Nonnull Class<T> type) {
+        return provider.initialStatesOf(uuids, type);
+    }
+
+    /**
+     * Enqueues snapshot of given aggregate and returns immediately. Once provider is closed, snapshots are written
+     * synchronously.
+     *
+     * @param aggregate aggregate to snapshot.
+     * @param <T>       type of aggregate.
+     * @return given aggregate.
+     * @throws NullPointerException if aggregate is null.
+     */
+    @Nonnull
+    @Override
+    public <T extends Aggregate> T snapshot(@Nonnull T aggregate) {
+        final UUID uuid = requireNonNull(aggregate, "Aggregate must not be null").uuid();
+        if (closed) {
+            return provider.snapshot(aggregate);
+        }
+        final boolean[] enqueue = {false};
+        pending.compute(uuid, (key, queued) -> {
+            if (queued == null) {
+                enqueue[0] = true;
+                return aggregate;
+            }
+            // snapshot of the aggregate is already queued, keep the latest one
+            return aggregate.streamVersion() >= queued.streamVersion() ? aggregate : queued;
+        });
+        if (enqueue[0] && !queue.offer(uuid)) {
+            // newer snapshot could be merged concurrently, it's not queued either
+            pending.remove(uuid);
+            dropped.increment();
+            log.trace("Snapshot queue is full, snapshot of {} dropped", uuid);
+        }
+        // provider could be closed concurrently, so nobody will flush this snapshot
+        if (closed && executor.isTerminated() && queue.remove(uuid)) {
+            flush(uuid);
+        }
+        return aggregate;
+    }
+
+    @Override
+    public void reset(@Nonnull UUID uuid) {
+        requireNonNull(uuid, "Uuid must not be null");
+        synchronized (lockOf(uuid)) {
+            pending.remove(uuid);
+            provider.reset(uuid);
+        }
+    }
+
+    /**
+     * @return count of snapshots, dropped because the queue was full.
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    private void flushLoop() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                final UUID uuid = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (uuid != null) {
+                    flush(uuid);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("{} interrupted, {} pending snapshots lost", getClass().getSimpleName(), queue.size());
+        }
+    }
+
+    private void flush(@Nonnull UUID uuid) {
+        synchronized (lockOf(uuid)) {
+            final Aggregate aggregate = pending.remove(uuid);
+            if (aggregate == null) {
+                // snapshot was reset while pending
+                return;
+            }
+            try {
+                provider.snapshot(aggregate);
+            } catch (Exception e) {
+                // snapshot is just an optimization, so the failed one is taken on the next read
+                log.error("Failed to write snapshot of {}:", uuid, e);
+            }
+        }
+    }
+
+    @Nonnull
+    private Object lockOf(@Nonnull UUID uuid) {
+        return locks[Math.floorMod(uuid.hashCode(), locks.length)];
+    }
+
+    /**
+     * Flushes all pending snapshots. Underlying {@link SnapshotProvider} is not closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("{} failed to flush pending snapshots in time", getClass().getSimpleName());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+        // snapshots, enqueued while the flush loop was finishing, are never flushed by it
+        for (UUID uuid = queue.poll(); uuid != null; uuid = queue.poll()) {
+            flush(uuid);
+        }
+        log.debug("{} closed", getClass().getSimpleName());
+    }
+}
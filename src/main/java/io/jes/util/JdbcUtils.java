@@ -4,6 +4,7 @@ import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
 import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -12,6 +13,9 @@ import lombok.SneakyThrows;
 
 public final class JdbcUtils {
 
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String CHECK_VIOLATION = "23514";
+
     private JdbcUtils() {
     }
 
@@ -43,6 +47,44 @@ public final class JdbcUtils {
         return metaData.getDatabaseProductName();
     }
 
+    /**
+     * Checks if the given exception (or any of it's causes) reports a unique constraint violation.
+     *
+     * @param exception exception to check.
+     * @return true if the exception was caused by unique constraint violation, false otherwise.
+     */
+    public static boolean isUniqueViolation(@Nullable Throwable exception) {
+        return hasSqlState(exception, UNIQUE_VIOLATION);
+    }
+
+    /**
+     * Checks if the given exception (or any of it's causes) reports a check constraint violation. Note: PostgreSQL
+     * reports the row, that doesn't fit any partition of partitioned table, as check violation too.
+     *
+     * @param exception exception to check.
+     * @return true if the exception was caused by check constraint violation, false otherwise.
+     */
+    public static boolean isCheckViolation(@Nullable Throwable exception) {
+        return hasSqlState(exception, CHECK_VIOLATION);
+    }
+
+    private static boolean hasSqlState(@Nullable Throwable exception, @Nonnull String sqlState) {
+        Throwable current = exception;
+        while (current != null) {
+            if (current instanceof SQLException) {
+                SQLException sqlException = (SQLException) current;
+                while (sqlException != null) {
+                    if (sqlState.equals(sqlException.getSQLState())) {
+                        return true;
+                    }
+                    sqlException = sqlException.getNextException();
+                }
+            }
+            current = current.getCause() != current ? current.getCause() : null;
+        }
+        return false;
+    }
+
     /**
      * Unwraps the returned from {@link java.sql.ResultSet#getObject(String)} type to appropriate java type.
      *
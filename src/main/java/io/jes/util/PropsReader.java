@@ -66,4 +66,22 @@ public final class PropsReader {
 
         throw new PropertyNotFoundException(propertyName);
     }
+
+    /**
+     * Reads {@literal JES} property the same way as {@link #getPropety(String)} does, falling back to given default.
+     * So applications, that ship their own {@literal jes.properties}, don't have to declare every property.
+     *
+     * @param propertyName name of the property to retrieve.
+     * @param defaultValue value to return, if property not found.
+     * @return property value or {@literal defaultValue}.
+     * @throws NullPointerException if {@literal propertyName} is null.
+     */
+    @Nonnull
+    public static String getPropety(@Nonnull String propertyName, @Nonnull String defaultValue) {
+        try {
+            return getPropety(propertyName);
+        } catch (PropertyNotFoundException e) {
+            return Objects.requireNonNull(defaultValue, "Default value must not be null");
+        }
+    }
 }
@@ -1,24 +1,35 @@
 package io.jes;
 
+import java.util.Map;
 import java.util.UUID;
 import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
 
 import org.junit.jupiter.api.Test;
 
+import io.jes.ex.BrokenAggregateException;
 import io.jes.internal.FancyAggregate;
+import io.jes.provider.JdbcStoreProvider;
 import io.jes.provider.JpaStoreProvider;
+import io.jes.provider.MappedFileStoreProvider;
+import io.jes.snapshot.JdbcSnapshotProvider;
 import io.jes.snapshot.InMemorySnapshotProvider;
 import io.jes.snapshot.NoopSnapshotProvider;
+import io.jes.snapshot.SnapshotPolicy;
 
 import static io.jes.internal.Events.FancyEvent;
 import static io.jes.internal.Events.ProcessingStarted;
 import static io.jes.internal.Events.ProcessingTerminated;
 import static io.jes.internal.Events.SampleEvent;
 import static io.jes.internal.FancyStuff.newEntityManagerFactory;
+import static io.jes.internal.FancyStuff.newH2DataSource;
+import static io.jes.internal.FancyStuff.newTempDirectory;
+import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -63,6 +74,81 @@ class AggregateStoreTest {
         } catch (Exception ignored) {}
     }
 
+    @Test
+    void shouldReadManyAggregatesAtOnce() {
+        final DataSource dataSource = newH2DataSource();
+        final JEventStore eventStore = new JEventStore(new JdbcStoreProvider<>(dataSource, String.class));
+        final AggregateStore aggregateStore = new AggregateStore(
+                eventStore, new JdbcSnapshotProvider<>(dataSource, String.class)
+        );
+
+        final UUID snapshotted = UUID.randomUUID();
+        final UUID fresh = UUID.randomUUID();
+        final UUID missing = UUID.randomUUID();
+        eventStore.write(new SampleEvent("FOO", snapshotted), new FancyEvent("BAR", snapshotted));
+        aggregateStore.readBy(snapshotted, FancyAggregate.class);
+        eventStore.write(new FancyEvent("BAZ", snapshotted));
+        eventStore.write(new SampleEvent("FOO", fresh), new FancyEvent("BAR", fresh));
+
+        final Map<UUID, FancyAggregate> aggregates = aggregateStore.readAll(
+                asList(snapshotted, fresh, missing), FancyAggregate.class
+        );
+
+        assertEquals(2, aggregates.size());
+        assertEquals(3, aggregates.get(snapshotted).streamVersion());
+        assertEquals("BAZ", aggregates.get(snapshotted).getFancyName());
+        assertEquals(2, aggregates.get(fresh).streamVersion());
+        assertEquals("BAR", aggregates.get(fresh).getFancyName());
+        assertEquals(aggregates.get(fresh), aggregateStore.readBy(fresh, FancyAggregate.class));
+    }
+
+    @Test
+    void shouldSnapshotAggregatesAccordingToSnapshotPolicy() {
+        final DataSource dataSource = newH2DataSource();
+        final JEventStore eventStore = new JEventStore(new JdbcStoreProvider<>(dataSource, String.class));
+        final JdbcSnapshotProvider<String> snapshotProvider = new JdbcSnapshotProvider<>(dataSource, String.class);
+        final AggregateStore aggregateStore = new AggregateStore(
+                eventStore, snapshotProvider, SnapshotPolicy.everyEvents(2)
+        );
+
+        final UUID uuid = UUID.randomUUID();
+        eventStore.write(new SampleEvent("FOO", uuid));
+        assertEquals(1, aggregateStore.readBy(uuid, FancyAggregate.class).streamVersion());
+        assertEquals(0, snapshotProvider.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+
+        eventStore.write(new FancyEvent("BAR", uuid));
+        assertEquals(2, aggregateStore.readBy(uuid, FancyAggregate.class).streamVersion());
+        assertEquals(2, snapshotProvider.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+
+        eventStore.write(new FancyEvent("BAZ", uuid));
+        assertEquals("BAZ", aggregateStore.readAll(asList(uuid), FancyAggregate.class).get(uuid).getFancyName());
+        assertEquals(2, snapshotProvider.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+    }
+
+    @Test
+    void failedEventHandlingShouldResetCachedSnapshot() {
+        final JEventStore eventStore = new JEventStore(new MappedFileStoreProvider(newTempDirectory()));
+        final InMemorySnapshotProvider snapshotProvider = new InMemorySnapshotProvider();
+        final AggregateStore aggregateStore = new AggregateStore(eventStore, snapshotProvider);
+
+        final UUID uuid = UUID.randomUUID();
+        eventStore.write(new SampleEvent("FOO", uuid));
+        eventStore.write(new FancyEvent("FOO", uuid));
+        assertEquals(2, aggregateStore.readBy(uuid, BrokenAggregate.class).streamVersion());
+
+        eventStore.write(new FancyEvent("BAR", uuid));
+        eventStore.write(new FancyEvent(BrokenAggregate.BROKEN, uuid));
+        assertThrows(BrokenAggregateException.class, () -> aggregateStore.readBy(uuid, BrokenAggregate.class));
+        assertEquals(0, snapshotProvider.initialStateOf(uuid, BrokenAggregate.class).streamVersion());
+
+        final UUID other = UUID.randomUUID();
+        eventStore.write(new SampleEvent("FOO", other));
+        assertEquals(1, aggregateStore.readBy(other, BrokenAggregate.class).streamVersion());
+        eventStore.write(new FancyEvent("BAR", other), new FancyEvent(BrokenAggregate.BROKEN, other));
+        assertThrows(BrokenAggregateException.class, () -> aggregateStore.readAll(asList(other), BrokenAggregate.class));
+        assertEquals(0, snapshotProvider.initialStateOf(other, BrokenAggregate.class).streamVersion());
+    }
+
     @Test
     void ifSnapshotProviderNotSpecifiedDefaultImplementationUsed() {
         final JEventStore eventStore = mock(JEventStore.class);
@@ -85,4 +171,24 @@ class AggregateStoreTest {
         verify(eventStore, times(1)).write(array);
     }
 
-}
\ No newline at end of file
+    static class BrokenAggregate extends Aggregate {
+
+        static final String BROKEN = "BROKEN";
+
+        private String name;
+
+        @Apply
+        private void handle(SampleEvent event) {
+            uuid = event.uuid();
+        }
+
+        @Apply
+        private void handle(FancyEvent event) {
+            if (BROKEN.equals(event.getName())) {
+                throw new BrokenAggregateException("Failed to apply " + event);
+            }
+            name = event.getName();
+        }
+    }
+
+}
@@ -1,9 +1,22 @@
 package io.jes;
 
+import java.util.UUID;
+import java.util.stream.Stream;
+
 import org.junit.jupiter.api.Test;
 
+import io.jes.ex.BrokenAggregateException;
+import io.jes.internal.AnnotatedFancyAggregate;
+import io.jes.internal.FancyAggregate;
+
+import static io.jes.internal.Events.FancyEvent;
+import static io.jes.internal.Events.ProcessingTerminated;
+import static io.jes.internal.Events.SampleEvent;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AggregateTest {
 
@@ -16,4 +29,77 @@ class AggregateTest {
     void newAggregateShouldHave0StreamVersion() {
         assertEquals(0, new Aggregate().streamVersion());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldApplyEventsWithAnnotatedAppliers() {
+        final UUID uuid = UUID.randomUUID();
+        final AnnotatedFancyAggregate aggregate = new AnnotatedFancyAggregate(null);
+        ((Aggregate) aggregate).handleEventStream(asList(
+                new SampleEvent("FOO", uuid), new FancyEvent("BAR", uuid), new ProcessingTerminated(uuid)
+        ));
+
+        assertEquals(uuid, aggregate.uuid());
+        assertEquals("BAR", aggregate.getFancyName());
+        assertTrue(aggregate.isCancelled());
+        assertEquals(3, aggregate.streamVersion());
+    }
+
+    @Test
+    void shouldApplyEventsFromLazyStreamAndCountVersions() {
+        final UUID uuid = UUID.randomUUID();
+        final FancyAggregate aggregate = new FancyAggregate(null);
+
+        final long handled = ((Aggregate) aggregate).handleEventStream(
+                Stream.of(new SampleEvent("FOO", uuid), new FancyEvent("BAR", uuid))
+        );
+
+        assertEquals(2, handled);
+        assertEquals(2, aggregate.streamVersion());
+        assertEquals("BAR", aggregate.getFancyName());
+        assertEquals(0, ((Aggregate) aggregate).handleEventStream(Stream.empty()));
+        assertEquals(2, aggregate.streamVersion());
+    }
+
+    @Test
+    void shouldApplyEventsWithRegisteredAppliers() {
+        final UUID uuid = UUID.randomUUID();
+        final Aggregate aggregate = new Aggregate() {
+            {
+                registerApplier(SampleEvent.class, event -> this.uuid = event.uuid());
+            }
+        };
+        aggregate.handleEventStream(asList(new SampleEvent("FOO", uuid), new FancyEvent("BAR", uuid)));
+
+        assertEquals(uuid, aggregate.uuid());
+        assertEquals(2, aggregate.streamVersion());
+    }
+
+    @Test
+    void subclassApplierShouldOverrideSuperclassApplier() {
+        final UUID uuid = UUID.randomUUID();
+        final AnnotatedFancyAggregate aggregate = new AnnotatedFancyAggregate() {
+            @Apply
+            @SuppressWarnings("unused")
+            private void handle(FancyEvent event) {
+                setFancyName(event.getName() + event.getName());
+            }
+        };
+        ((Aggregate) aggregate).handleEventStream(asList(new SampleEvent("FOO", uuid), new FancyEvent("BAR", uuid)));
+
+        assertEquals(uuid, aggregate.uuid());
+        assertEquals("BARBAR", aggregate.getFancyName());
+    }
+
+    @Test
+    void shouldThrowBrokenAggregateExceptionIfApplierIsInvalid() {
+        final Aggregate aggregate = new Aggregate() {
+            @Apply
+            @SuppressWarnings("unused")
+            private int handle(SampleEvent event) {
+                return 0;
+            }
+        };
+        assertThrows(BrokenAggregateException.class,
+                () -> aggregate.handleEventStream(singletonList(new SampleEvent("FOO"))));
+    }
+}
@@ -0,0 +1,194 @@
+package io.jes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+import org.junit.jupiter.api.Test;
+
+import io.jes.ex.VersionMismatchException;
+import io.jes.provider.InMemoryStoreProvider;
+import io.jes.provider.StoreProvider;
+import lombok.SneakyThrows;
+
+import static io.jes.internal.Events.SampleEvent;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroupCommitWriterTest {
+
+    @Test
+    @SneakyThrows
+    void shouldWriteAllConcurrentAsyncWrites() {
+        final int threads = 8;
+        final int writesPerThread = 100;
+        final InMemoryStoreProvider provider = new InMemoryStoreProvider();
+        final FlushPolicy policy = FlushPolicy.of(50, 2, TimeUnit.MILLISECONDS, 64);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (final JEventStore store = new JEventStore(provider, policy)) {
+            final List<Future<List<CompletableFuture<Void>>>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    final List<CompletableFuture<Void>> futures = new ArrayList<>();
+                    for (int j = 0; j < writesPerThread; j++) {
+                        futures.add(store.writeAsync(new SampleEvent("FOO"), new SampleEvent("BAR")));
+                    }
+                    return futures;
+                }));
+            }
+            for (Future<List<CompletableFuture<Void>>> result : results) {
+                for (CompletableFuture<Void> future : result.get()) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (final Stream<Event> stream = provider.readFrom(0)) {
+            assertEquals(threads * writesPerThread * 2, stream.count());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void failedWriteShouldNotAffectOtherWritesInBatch() {
+        final UUID uuid = UUID.randomUUID();
+        final InMemoryStoreProvider provider = new InMemoryStoreProvider();
+        final FlushPolicy policy = FlushPolicy.of(100, 50, TimeUnit.MILLISECONDS, 100);
+
+        try (final JEventStore store = new JEventStore(provider, policy)) {
+            final CompletableFuture<Void> first = store.writeAsync(new SampleEvent("FOO", uuid, 0));
+            final CompletableFuture<Void> broken = store.writeAsync(new SampleEvent("BAR", uuid, 0));
+            final CompletableFuture<Void> last = store.writeAsync(new SampleEvent("BAZ", uuid, 1));
+
+            first.get(10, TimeUnit.SECONDS);
+            last.get(10, TimeUnit.SECONDS);
+            final ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> broken.get(10, TimeUnit.SECONDS));
+            assertTrue(exception.getCause() instanceof VersionMismatchException);
+        }
+        assertEquals(2, provider.readBy(uuid).size());
+    }
+
+    @Test
+    @SneakyThrows
+    void writesShouldNotBeCoalescedIfBatchWriteIsNotAtomic() {
+        final UUID uuid = UUID.randomUUID();
+        final InMemoryStoreProvider delegate = new InMemoryStoreProvider();
+        // relies on the default StoreProvider#write(Event...), that writes events one by one
+        final StoreProvider provider = new StoreProvider() {
+            @Override
+            public Stream<Event> readFrom(long offset) {
+                return delegate.readFrom(offset);
+            }
+
+            @Override
+            public Collection<Event> readBy(@Nonnull UUID uuid) {
+                return delegate.readBy(uuid);
+            }
+
+            @Override
+            public void write(@Nonnull Event event) {
+                delegate.write(event);
+            }
+
+            @Override
+            public void deleteBy(@Nonnull UUID uuid) {
+                delegate.deleteBy(uuid);
+            }
+        };
+        final FlushPolicy policy = FlushPolicy.of(100, 50, TimeUnit.MILLISECONDS, 100);
+
+        try (final JEventStore store = new JEventStore(provider, policy)) {
+            final CompletableFuture<Void> first = store.writeAsync(new SampleEvent("FOO", uuid));
+            final CompletableFuture<Void> broken = store.writeAsync(new SampleEvent("BAR", uuid, 5));
+            final CompletableFuture<Void> last = store.writeAsync(new SampleEvent("BAZ", uuid));
+
+            first.get(10, TimeUnit.SECONDS);
+            last.get(10, TimeUnit.SECONDS);
+            assertThrows(ExecutionException.class, () -> broken.get(10, TimeUnit.SECONDS));
+        }
+        // events, written before the failed one, are not written again
+        assertEquals(2, delegate.readBy(uuid).size());
+    }
+
+    @Test
+    void closedStoreShouldRejectWrites() {
+        final InMemoryStoreProvider provider = new InMemoryStoreProvider();
+        final JEventStore store = new JEventStore(provider);
+        store.writeAsync(new SampleEvent("FOO")).join();
+        store.close();
+
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> store.writeAsync(new SampleEvent("BAR")).get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertThrows(IllegalStateException.class, () -> store.write(new SampleEvent("BAZ")));
+
+        // store, that never wrote asynchronously, rejects async writes after close as well
+        final JEventStore unused = new JEventStore(provider);
+        unused.close();
+        assertThrows(ExecutionException.class,
+                () -> unused.writeAsync(new SampleEvent("BAR")).get(10, TimeUnit.SECONDS));
+
+        try (final Stream<Event> stream = store.readFrom(0)) {
+            assertEquals(1, stream.count());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void writesConcurrentWithCloseShouldBeCompleted() {
+        final int threads = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int attempt = 0; attempt < 20; attempt++) {
+                final GroupCommitWriter writer = new GroupCommitWriter(new InMemoryStoreProvider(),
+                        FlushPolicy.of(10, 0, TimeUnit.MILLISECONDS, 16));
+                final List<Future<List<CompletableFuture<Void>>>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    results.add(executor.submit(() -> {
+                        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+                        for (int j = 0; j < 200; j++) {
+                            futures.add(writer.write(new SampleEvent("FOO")));
+                        }
+                        return futures;
+                    }));
+                }
+                writer.close();
+                for (Future<List<CompletableFuture<Void>>> result : results) {
+                    for (CompletableFuture<Void> future : result.get()) {
+                        // either written or rejected, but never left pending
+                        try {
+                            future.get(10, TimeUnit.SECONDS);
+                        } catch (ExecutionException e) {
+                            assertTrue(e.getCause() instanceof IllegalStateException);
+                        }
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void flushPolicyShouldHandleItsInvariants() {
+        assertThrows(IllegalArgumentException.class, () -> FlushPolicy.of(0, 1, TimeUnit.MILLISECONDS, 1));
+        assertThrows(IllegalArgumentException.class, () -> FlushPolicy.of(1, -1, TimeUnit.MILLISECONDS, 1));
+        assertThrows(IllegalArgumentException.class, () -> FlushPolicy.of(1, 1, TimeUnit.MILLISECONDS, 0));
+        //noinspection ConstantConditions
+        assertThrows(NullPointerException.class, () -> FlushPolicy.of(1, 1, null, 1));
+    }
+}
@@ -22,6 +22,7 @@ import static io.jes.internal.Events.SampleEvent;
 import static io.jes.internal.FancyStuff.newPostgresDataSource;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -64,6 +65,11 @@ class JEventStoreTest {
         assertThrows(IllegalArgumentException.class, () -> source.readBy(UUID.randomUUID(), -1));
     }
 
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> source.readFrom(0, 0));
+    }
+
     @Test
     void shouldThrowIllegalStateExceptionWhenStoreCantReadSnapshots() {
         final JEventStore store = new JEventStore(new InMemoryStoreProvider());
@@ -121,6 +127,32 @@ class JEventStoreTest {
         assertIterableEquals(singletonList(new SampleEvent("BAZ", uuid, 0)), notModified);
     }
 
+    @Test
+    void shouldCopyRawSourceEventStoreContentIntoTargetEventStore() {
+        final UUID uuid = UUID.randomUUID();
+        final List<Event> events = asList(
+                new SampleEvent("FOO", uuid, 0),
+                new SampleEvent("BAR"),
+                new SampleEvent("BAZ", uuid, 1)
+        );
+
+        events.forEach(source::write);
+        assertThrows(EmptyEventStreamException.class, () -> target.readBy(uuid));
+
+        source.copyRawTo(target);
+        assertIterableEquals(asList(events.get(0), events.get(2)), target.readBy(uuid));
+        try (final Stream<Event> stream = target.readFrom(0)) {
+            assertIterableEquals(events, stream.collect(toList()));
+        }
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionWhenStoreCantCopyRawEvents() {
+        final JEventStore store = new JEventStore(new InMemoryStoreProvider());
+        assertThrows(IllegalArgumentException.class, () -> source.copyRawTo(store));
+        assertThrows(IllegalArgumentException.class, () -> store.copyRawTo(source));
+    }
+
     @Test
     void shouldReadEventsWithOffsetIfStoreImplementSnapshotReader() {
         final UUID uuid = UUID.randomUUID();
@@ -0,0 +1,46 @@
+package io.jes.internal;
+
+import java.util.UUID;
+
+import io.jes.Aggregate;
+import io.jes.Apply;
+import io.jes.internal.Events.FancyEvent;
+import io.jes.internal.Events.ProcessingTerminated;
+import io.jes.internal.Events.SampleEvent;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * {@link FancyAggregate}, that declares it's appliers with {@link Apply} instead of registering them.
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+public class AnnotatedFancyAggregate extends Aggregate {
+
+    private String fancyName;
+    private boolean cancelled;
+
+    public AnnotatedFancyAggregate(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    protected AnnotatedFancyAggregate() {
+    }
+
+    // assume it's first (initial) event in use case
+    @Apply
+    private void handle(SampleEvent event) {
+        uuid = event.uuid();
+    }
+
+    @Apply
+    private void handle(FancyEvent fancyEvent) {
+        fancyName = fancyEvent.getName();
+    }
+
+    @Apply
+    @SuppressWarnings("unused")
+    private void handle(ProcessingTerminated processingTerminated) {
+        cancelled = true;
+    }
+}
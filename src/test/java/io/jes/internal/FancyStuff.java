@@ -1,5 +1,7 @@
 package io.jes.internal;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.Statement;
 import java.util.HashMap;
@@ -44,6 +46,8 @@ public final class FancyStuff {
     private static final int MAX_POOL_SIZE = 10;
     private static final int REDIS_EXPOSED_PORT = 6379;
     private static final String REDDIS_URL_PATTERN = "redis://%s:%d";
+    // partitioned store needs PostgreSQL 14+, default image of testcontainers is older
+    private static final String POSTGRES_14_IMAGE = "postgres:14";
 
     private FancyStuff() {}
 
@@ -68,17 +72,24 @@ public final class FancyStuff {
     }
 
     @Nonnull
-    private static PostgreSQLContainer<?> newPostgreSQLContainer() {
+    private static PostgreSQLContainer<?> newPostgreSQLContainer(@Nonnull PostgreSQLContainer container) {
         final String user = "user";
         final String password = "password";
-        final PostgreSQLContainer container = new PostgreSQLContainer()
-                .withDatabaseName("jes")
+        container.withDatabaseName("jes")
                 .withUsername(user)
                 .withPassword(password);
         container.start();
         return container;
     }
 
+    @Nonnull
+    @SneakyThrows
+    public static Path newTempDirectory() {
+        final Path directory = Files.createTempDirectory("jes-");
+        directory.toFile().deleteOnExit();
+        return directory;
+    }
+
     @Nonnull
     public static DataSource newH2DataSource() {
         final JdbcDataSource jdbcDataSource = new JdbcDataSource();
@@ -95,8 +106,18 @@ public final class FancyStuff {
 
     @Nonnull
     public static DataSource newPostgresDataSource(@Nonnull String schemaName) {
+        return newPostgresDataSource(schemaName, newPostgreSQLContainer(new PostgreSQLContainer()));
+    }
+
+    @Nonnull
+    public static DataSource newPostgres14DataSource(@Nonnull String schemaName) {
+        return newPostgresDataSource(schemaName, newPostgreSQLContainer(new PostgreSQLContainer(POSTGRES_14_IMAGE)));
+    }
+
+    @Nonnull
+    private static DataSource newPostgresDataSource(@Nonnull String schemaName,
+                                                    @Nonnull PostgreSQLContainer<?> container) {
         schemaName = schemaName + "_" + now().toInstant(UTC).toEpochMilli();
-        PostgreSQLContainer<?> container = newPostgreSQLContainer();
         final HikariConfig config = new HikariConfig();
 
         config.setUsername(container.getUsername());
@@ -44,6 +44,18 @@ class OffsetTest {
         assertEquals(0, offset.value(UUID.randomUUID().toString()));
     }
 
+    @ParameterizedTest
+    @MethodSource("createOffsets")
+    void shouldAddDeltaToOffsetValueByKey(@Nonnull Offset offset) {
+        final String key = UUID.randomUUID().toString();
+
+        offset.add(key, 5);
+        assertEquals(5, offset.value(key));
+        offset.increment(key);
+        offset.add(key, 2);
+        assertEquals(8, offset.value(key));
+    }
+
     @ParameterizedTest
     @MethodSource("createOffsets")
     void shouldResetOffsetByKey(@Nonnull Offset offset) {
@@ -0,0 +1,62 @@
+package io.jes.provider;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import io.jes.Event;
+
+import static io.jes.internal.Events.SampleEvent;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkedEventLogTest {
+
+    private static final int COUNT = 50_000;
+
+    @Test
+    void shouldAppendEventsAcrossManyChunks() {
+        final ChunkedEventLog log = new ChunkedEventLog();
+        final Event first = new SampleEvent("FOO");
+        assertEquals(0, log.append(first));
+        for (int i = 1; i < COUNT; i++) {
+            assertEquals(i, log.append(new SampleEvent("BAR")));
+        }
+        final Event last = new SampleEvent("BAZ");
+        assertEquals(COUNT, log.append(last));
+
+        assertEquals(COUNT + 1, log.size());
+        assertSame(first, log.get(0));
+        assertSame(last, log.get(COUNT));
+        assertEquals(COUNT + 1, log.stream(0).count());
+        assertEquals(1, log.stream(COUNT).count());
+        assertEquals(0, log.stream(COUNT + 1).count());
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(COUNT + 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> log.get(-1));
+    }
+
+    @Test
+    void shouldSkipClearedPositionsWithoutShiftingOthers() {
+        final ChunkedEventLog log = new ChunkedEventLog();
+        final Event foo = new SampleEvent("FOO");
+        final Event bar = new SampleEvent("BAR");
+        final Event baz = new SampleEvent("BAZ");
+        log.append(foo);
+        log.append(bar);
+        log.append(baz);
+
+        log.clear(1);
+
+        assertNull(log.get(1));
+        assertSame(baz, log.get(2));
+        assertEquals(3, log.size());
+        final List<Event> events = log.stream(0).collect(Collectors.toList());
+        assertEquals(2, events.size());
+        assertSame(foo, events.get(0));
+        assertSame(baz, events.get(1));
+    }
+
+}
@@ -0,0 +1,103 @@
+package io.jes.provider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import io.jes.Event;
+import io.jes.ex.VersionMismatchException;
+import lombok.SneakyThrows;
+
+import static io.jes.internal.Events.SampleEvent;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryStoreProviderTest {
+
+    private static final int THREADS = 8;
+    private static final int WRITES_PER_THREAD = 500;
+    private static final int STREAMS = 4;
+
+    @Test
+    @SneakyThrows
+    void shouldNotLoseOrDuplicateVersionsOnConcurrentVersionedWrites() {
+        final InMemoryStoreProvider provider = new InMemoryStoreProvider();
+        final List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < STREAMS; i++) {
+            uuids.add(UUID.randomUUID());
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < WRITES_PER_THREAD; j++) {
+                        final UUID uuid = uuids.get(ThreadLocalRandom.current().nextInt(STREAMS));
+                        writeWithRetry(provider, uuid, j % 2 == 0);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        int total = 0;
+        for (UUID uuid : uuids) {
+            final List<Event> stream = new ArrayList<>(provider.readBy(uuid));
+            for (int version = 0; version < stream.size(); version++) {
+                assertEquals(version, stream.get(version).expectedStreamVersion());
+            }
+            total += stream.size();
+        }
+        // half of the writes are batches of two events
+        assertEquals(THREADS * WRITES_PER_THREAD / 2 * 3, total);
+
+        try (final Stream<Event> log = provider.readFrom(0)) {
+            final Map<UUID, List<Long>> versions = log.collect(Collectors.groupingBy(
+                    Event::uuid, HashMap::new, Collectors.mapping(Event::expectedStreamVersion, Collectors.toList())
+            ));
+            for (UUID uuid : uuids) {
+                final List<Long> streamVersions = versions.get(uuid);
+                for (int version = 0; version < streamVersions.size(); version++) {
+                    assertEquals(version, (long) streamVersions.get(version));
+                }
+            }
+        }
+    }
+
+    private static void writeWithRetry(StoreProvider provider, UUID uuid, boolean batch) {
+        while (true) {
+            final long version = provider.readBy(uuid).size();
+            try {
+                if (batch) {
+                    provider.write(new SampleEvent("FOO", uuid, version), new SampleEvent("BAR", uuid, version + 1));
+                } else {
+                    provider.write(new SampleEvent("BAZ", uuid, version));
+                }
+                return;
+            } catch (VersionMismatchException ignored) {
+                // concurrent write to the same stream, retry with actual version
+            }
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+package io.jes.provider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import io.jes.Event;
+import io.jes.ex.BrokenStoreException;
+import io.jes.ex.VersionMismatchException;
+import io.jes.serializer.Serializer;
+import io.jes.serializer.SerializerFactory;
+import lombok.SneakyThrows;
+
+import static io.jes.internal.Events.SampleEvent;
+import static io.jes.internal.FancyStuff.newH2DataSource;
+import static io.jes.internal.FancyStuff.newPostgres14DataSource;
+import static java.lang.Long.MAX_VALUE;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcStoreProviderTest {
+
+    @Test
+    void shouldRouteReadsToReadDataSourceAndWritesToPrimary() {
+        final DataSource primary = newH2DataSource();
+        // separate database stands for the replica, which is not yet caught up with the primary
+        final DataSource replica = newH2DataSource();
+        new JdbcStoreProvider<>(replica, String.class);
+
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(primary, replica, String.class);
+        final UUID uuid = UUID.randomUUID();
+        final Event event = new SampleEvent("FOO", uuid, 0);
+        provider.write(event);
+
+        try (final Stream<Event> stream = provider.readFrom(0)) {
+            assertEquals(0, stream.count());
+        }
+        assertTrue(provider.readBy(uuid).isEmpty());
+
+        final JdbcStoreProvider<String> consistent = provider.primary();
+        try (final Stream<Event> stream = consistent.readFrom(0)) {
+            assertIterableEquals(singletonList(event), stream.collect(toList()));
+        }
+        assertIterableEquals(singletonList(event), consistent.readBy(uuid));
+        // versions are always checked against the primary
+        consistent.write(new SampleEvent("BAR", uuid, 1));
+        assertEquals(2, consistent.readBy(uuid).size());
+    }
+
+    @Test
+    void primaryViewOfSingleDataSourceProviderShouldBeTheProviderItself() {
+        final JdbcStoreProvider<byte[]> provider = new JdbcStoreProvider<>(newH2DataSource(), byte[].class);
+        assertSame(provider, provider.primary());
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldMigrateStoreCreatedBeforeStreamVersions() {
+        final DataSource dataSource = newH2DataSource();
+        final Serializer<Event, String> serializer = SerializerFactory.newEventSerializer(String.class);
+        final UUID uuid = UUID.randomUUID();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE event_store (id BIGSERIAL PRIMARY KEY, uuid UUID, data TEXT NOT NULL)");
+            statement.execute("CREATE INDEX uuid_idx ON event_store (uuid)");
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO event_store (uuid, data) VALUES (?, ?)")) {
+                for (Event event : asList(new SampleEvent("FOO", uuid), new SampleEvent("BAR", null),
+                        new SampleEvent("BAZ", uuid))) {
+                    insert.setObject(1, event.uuid());
+                    insert.setString(2, serializer.serialize(event));
+                    insert.executeUpdate();
+                }
+            }
+        }
+
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(dataSource, String.class);
+        assertEquals(2, provider.readBy(uuid).size());
+        assertThrows(VersionMismatchException.class, () -> provider.write(new SampleEvent("FOO", uuid, 1)));
+        provider.write(new SampleEvent("FOO", uuid, 2));
+        assertEquals(3, provider.readBy(uuid).size());
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet versions = statement.executeQuery("SELECT version FROM event_store ORDER BY id")) {
+            for (Long expected : asList(0L, null, 1L, 2L)) {
+                assertTrue(versions.next());
+                assertEquals(expected, versions.getObject(1));
+            }
+            assertFalse(versions.next());
+        }
+        try (Connection connection = dataSource.getConnection();
+             ResultSet indexes = connection.getMetaData().getIndexInfo(null, null, "EVENT_STORE", false, false)) {
+            while (indexes.next()) {
+                assertFalse("UUID_IDX".equalsIgnoreCase(indexes.getString("INDEX_NAME")));
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldNumberNotVersionedEventsAfterVersionedOnes() {
+        final DataSource dataSource = newH2DataSource();
+        final Serializer<Event, String> serializer = SerializerFactory.newEventSerializer(String.class);
+        final UUID uuid = UUID.randomUUID();
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(dataSource, String.class);
+        provider.write(new SampleEvent("FOO", uuid), new SampleEvent("BAR", uuid));
+        // i.e. events, written by instances, that don't version them yet, during rolling deploy
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO event_store (uuid, data) VALUES (?, ?)")) {
+            for (Event event : asList(new SampleEvent("BAZ", uuid), new SampleEvent("QUX", uuid))) {
+                insert.setObject(1, event.uuid());
+                insert.setString(2, serializer.serialize(event));
+                insert.executeUpdate();
+            }
+        }
+        provider.write(new SampleEvent("FOO", uuid, 2));
+
+        final JdbcStoreProvider<String> restarted = new JdbcStoreProvider<>(dataSource, String.class);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet versions = statement.executeQuery("SELECT version FROM event_store ORDER BY id")) {
+            for (Long expected : asList(0L, 1L, 3L, 4L, 2L)) {
+                assertTrue(versions.next());
+                assertEquals(expected, versions.getObject(1));
+            }
+            assertFalse(versions.next());
+        }
+        restarted.write(new SampleEvent("BAR", uuid, 5));
+        assertEquals(6, restarted.readBy(uuid).size());
+    }
+
+    @Test
+    @SneakyThrows
+    void streamingReadsShouldReleaseConnectionsOnClose() {
+        final JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setUrl("jdbc:h2:mem:jes-" + UUID.randomUUID());
+        final JdbcConnectionPool dataSource = JdbcConnectionPool.create(h2DataSource);
+        dataSource.setMaxConnections(2);
+        dataSource.setLoginTimeout(1);
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(dataSource, String.class);
+
+        // more events, than the default fetch size
+        final int count = 1200;
+        final Event[] events = new Event[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = new SampleEvent(String.valueOf(i));
+        }
+        provider.write(events);
+
+        for (int i = 0; i < 10; i++) {
+            // partially consumed cursor must release it's connection as well
+            try (final Stream<Event> stream = provider.readFrom(0)) {
+                assertEquals(10, stream.limit(10).count());
+            }
+        }
+        try (final Stream<Event> stream = provider.readFrom(0)) {
+            assertIterableEquals(asList(events), stream.collect(toList()));
+        }
+        assertEquals(0, dataSource.getActiveConnections());
+        dataSource.dispose();
+    }
+
+
+    @Test
+    @SneakyThrows
+    void partitionedStoreShouldCreatePartitionsAheadOfWrites() {
+        final DataSource dataSource = newPostgres14DataSource("partitioned");
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(dataSource, String.class, 10);
+        assertEquals(2, countPartitions(dataSource));
+
+        final UUID uuid = UUID.randomUUID();
+        for (int i = 0; i < 25; i++) {
+            provider.write(new SampleEvent("FOO" + i, uuid, i));
+        }
+        // ids 20-25 are written to partition 2, partition 3 is created before any write reaches it
+        assertEquals(4, countPartitions(dataSource));
+        assertEquals(25, provider.readBy(uuid).size());
+        try (final Stream<Event> stream = provider.readFrom(0)) {
+            assertEquals(25, stream.count());
+        }
+        provider.close();
+    }
+
+    @Test
+    @SneakyThrows
+    void partitionedStoreShouldSerializeConcurrentWritesToTheSameStream() {
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(newPostgres14DataSource("locks"),
+                String.class, 50);
+        final UUID uuid = UUID.randomUUID();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<?>> writes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            writes.add(executor.submit(() -> provider.write(new SampleEvent("FOO", uuid))));
+        }
+        for (Future<?> write : writes) {
+            write.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // partitioned store has no unique (uuid, version) index, stream locks keep versions unique
+        try (final Stream<EventEnvelope<String>> stream = provider.readEnvelopesFrom(0)) {
+            final List<Long> versions = stream.map(EventEnvelope::version).sorted().collect(toList());
+            assertIterableEquals(LongStream.range(0, 100).boxed().collect(toList()), versions);
+        }
+        provider.close();
+    }
+
+    @Test
+    @SneakyThrows
+    void partitionedStoreShouldDetachPartitionsBeforeOffset() {
+        final DataSource dataSource = newPostgres14DataSource("detached");
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(dataSource, String.class, 10);
+        for (int i = 0; i < 25; i++) {
+            provider.write(new SampleEvent("FOO" + i));
+        }
+
+        // partition 1 holds ids up to 19, so it can't be detached yet
+        final List<String> detached = provider.detachPartitionsBefore(18);
+        assertEquals(1, detached.size());
+        assertTrue(detached.get(0).endsWith("event_store_p0"));
+        assertEquals(1, provider.detachPartitionsBefore(19).size());
+        assertTrue(provider.detachPartitionsBefore(MAX_VALUE).isEmpty());
+
+        try (final Stream<EventEnvelope<String>> stream = provider.readEnvelopesFrom(0)) {
+            assertEquals(20, stream.findFirst().orElseThrow(IllegalStateException::new).id());
+        }
+        // detached partition is a regular table now
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery("SELECT count(*) FROM event_store_p0")) {
+            assertTrue(count.next());
+            assertEquals(9, count.getLong(1));
+        }
+        provider.close();
+    }
+
+    @Test
+    @SneakyThrows
+    void partitionedStoreShouldNotTreatCheckViolationAsMissingPartition() {
+        final DataSource dataSource = newPostgres14DataSource("checked");
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(dataSource, String.class, 10);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE event_store ADD CONSTRAINT uuid_check CHECK (uuid IS NOT NULL)");
+        }
+
+        assertThrows(BrokenStoreException.class, () -> provider.write(new SampleEvent("FOO", null)));
+        assertEquals(2, countPartitions(dataSource));
+        provider.close();
+    }
+
+    @Test
+    void partitionedStoreShouldNotBeCreatedOverNotPartitionedOne() {
+        final DataSource dataSource = newPostgres14DataSource("regular");
+        new JdbcStoreProvider<>(dataSource, String.class);
+
+        final BrokenStoreException exception = assertThrows(BrokenStoreException.class,
+                () -> new JdbcStoreProvider<>(dataSource, String.class, 10));
+        assertTrue(exception.getMessage().startsWith("Event store table exists, but it's not partitioned"));
+    }
+
+    @SneakyThrows
+    private static long countPartitions(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery(
+                     "SELECT count(*) FROM pg_inherits WHERE inhparent = CAST('event_store' AS regclass)")) {
+            assertTrue(count.next());
+            return count.getLong(1);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package io.jes.provider;
+
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.jupiter.api.Test;
+
+import io.jes.Event;
+import io.jes.provider.jpa.StoreEntryFactory;
+import io.jes.serializer.Serializer;
+import io.jes.serializer.SerializerFactory;
+
+import static io.jes.internal.Events.SampleEvent;
+import static io.jes.internal.FancyStuff.newEntityManagerFactory;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+
+class JpaStoreProviderTest {
+
+    @Test
+    void shouldReadStreamsWrittenBeforeStreamVersions() {
+        final EntityManagerFactory entityManagerFactory = newEntityManagerFactory(String.class);
+        final Serializer<Event, String> serializer = SerializerFactory.newEventSerializer(String.class);
+        final UUID uuid = UUID.randomUUID();
+        final Event foo = new SampleEvent("FOO", uuid);
+        final Event bar = new SampleEvent("BAR", uuid);
+
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        for (Event event : asList(foo, bar)) {
+            entityManager.persist(StoreEntryFactory.newEntry(uuid, serializer.serialize(event)));
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+
+        try (JpaStoreProvider<String> provider = new JpaStoreProvider<>(entityManagerFactory, String.class)) {
+            assertIterableEquals(asList(foo, bar), provider.readBy(uuid));
+            assertIterableEquals(asList(foo, bar), provider.readBy(uuid, 0));
+        }
+    }
+
+}
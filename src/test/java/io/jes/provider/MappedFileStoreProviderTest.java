@@ -0,0 +1,127 @@
+package io.jes.provider;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import io.jes.Event;
+import io.jes.ex.VersionMismatchException;
+import lombok.SneakyThrows;
+
+import static io.jes.internal.Events.SampleEvent;
+import static io.jes.internal.FancyStuff.newTempDirectory;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileStoreProviderTest {
+
+    private static final int SMALL_SEGMENT_SIZE = 1024;
+    private static final int HEADER_SIZE = 37;
+    private static final int CHECKSUM_SIZE = 4;
+
+    @Test
+    void shouldRebuildIndexesOnReopen() {
+        final Path directory = newTempDirectory();
+        final UUID uuid = UUID.randomUUID();
+        final UUID deleted = UUID.randomUUID();
+        final List<Event> expected = new ArrayList<>();
+
+        try (final MappedFileStoreProvider provider = new MappedFileStoreProvider(directory, SMALL_SEGMENT_SIZE)) {
+            for (int i = 0; i < 50; i++) {
+                final SampleEvent event = new SampleEvent("FOO" + i, uuid, i);
+                provider.write(event);
+                provider.write(new SampleEvent("BAR" + i, deleted));
+                expected.add(event);
+            }
+            provider.deleteBy(deleted);
+        }
+
+        try (final MappedFileStoreProvider provider = new MappedFileStoreProvider(directory, SMALL_SEGMENT_SIZE)) {
+            assertTrue(directory.toFile().list().length > 1, "Journal should roll over many segments");
+            assertIterableEquals(expected, provider.readBy(uuid));
+            assertIterableEquals(expected.subList(40, 50), provider.readBy(uuid, 40));
+            assertTrue(provider.readBy(deleted).isEmpty());
+            try (final Stream<Event> stream = provider.readFrom(0)) {
+                assertIterableEquals(expected, stream.collect(toList()));
+            }
+            try (final Stream<Event> stream = provider.readFrom(98)) {
+                assertIterableEquals(expected.subList(49, 50), stream.collect(toList()));
+            }
+
+            assertThrows(VersionMismatchException.class, () -> provider.write(new SampleEvent("BAZ", uuid, 0)));
+            provider.write(new SampleEvent("BAZ", uuid, 50));
+            assertEquals(51, provider.readBy(uuid).size());
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldDiscardTornRecordOnReopen() {
+        final Path directory = newTempDirectory();
+        final SampleEvent expected = new SampleEvent("FOO");
+        try (final MappedFileStoreProvider provider = new MappedFileStoreProvider(directory, SMALL_SEGMENT_SIZE)) {
+            provider.write(expected);
+            provider.write(new SampleEvent("BAR"));
+        }
+
+        // flip the checksum of the second (last) record, like it was torn by the crash
+        final Path segment = directory.resolve(String.format("%020d.segment", 0));
+        try (final FileChannel channel = FileChannel.open(segment, READ, WRITE)) {
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SMALL_SEGMENT_SIZE);
+            final int second = HEADER_SIZE + buffer.getInt(0) + CHECKSUM_SIZE;
+            final int checksum = second + HEADER_SIZE + buffer.getInt(second);
+            buffer.put(checksum, (byte) ~buffer.get(checksum));
+        }
+
+        try (final MappedFileStoreProvider provider = new MappedFileStoreProvider(directory, SMALL_SEGMENT_SIZE)) {
+            try (final Stream<Event> stream = provider.readFrom(0)) {
+                assertIterableEquals(singletonList(expected), stream.collect(toList()));
+            }
+            provider.write(new SampleEvent("BAZ"));
+            try (final Stream<Event> stream = provider.readFrom(1)) {
+                assertEquals(1, stream.count());
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void concurrentReadsShouldSeeOnlyCompleteRecords() {
+        final int count = 2000;
+        try (final MappedFileStoreProvider provider = new MappedFileStoreProvider(newTempDirectory(),
+                SMALL_SEGMENT_SIZE)) {
+            final Thread writer = new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    provider.write(new SampleEvent(String.valueOf(i)));
+                }
+            });
+            writer.start();
+            long read = 0;
+            while (read < count) {
+                try (final Stream<Event> stream = provider.readFrom(0)) {
+                    final List<Event> events = stream.collect(toList());
+                    // published prefix of the journal, in order and without torn records
+                    for (int i = 0; i < events.size(); i++) {
+                        assertEquals(String.valueOf(i), ((SampleEvent) events.get(i)).getName());
+                    }
+                    assertTrue(events.size() >= read);
+                    read = events.size();
+                }
+            }
+            writer.join();
+        }
+    }
+
+}
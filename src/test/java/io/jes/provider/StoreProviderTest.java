@@ -1,10 +1,17 @@
 package io.jes.provider;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 
@@ -15,14 +22,20 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import io.jes.Event;
 import io.jes.ex.VersionMismatchException;
+import io.jes.snapshot.SnapshotReader;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
+import static io.jes.internal.Events.FancyEvent;
 import static io.jes.internal.Events.SampleEvent;
 import static io.jes.internal.FancyStuff.newEntityManagerFactory;
 import static io.jes.internal.FancyStuff.newH2DataSource;
 import static io.jes.internal.FancyStuff.newPostgresDataSource;
+import static io.jes.internal.FancyStuff.newTempDirectory;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
@@ -30,12 +43,15 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @Slf4j
 class StoreProviderTest {
 
     private static final Collection<StoreProvider> PROVIDERS = asList(
             new InMemoryStoreProvider(),
+            new MappedFileStoreProvider(newTempDirectory()),
             new JdbcStoreProvider<>(newH2DataSource(), String.class),
             new JdbcStoreProvider<>(newH2DataSource(), byte[].class),
             new JdbcStoreProvider<>(newPostgresDataSource(), byte[].class),
@@ -65,6 +81,44 @@ class StoreProviderTest {
         actual.forEach(event -> log.info("{}", event));
     }
 
+    @ParameterizedTest
+    @MethodSource("createProviders")
+    void shouldReadEventsByPages(@Nonnull StoreProvider provider) {
+        final List<Event> expected = asList(new SampleEvent("FOO"), new SampleEvent("BAR"), new SampleEvent("BAZ"));
+        expected.forEach(provider::write);
+
+        final List<Event> all;
+        try (final Stream<Event> stream = provider.readFrom(0)) {
+            all = stream.collect(toList());
+        }
+        final List<Event> page;
+        try (final Stream<Event> stream = provider.readFrom(0, 2)) {
+            page = stream.collect(toList());
+        }
+
+        assertEquals(2, page.size());
+        assertIterableEquals(all.subList(0, 2), page);
+    }
+
+    @ParameterizedTest
+    @MethodSource("createProviders")
+    void shouldReadEventsOfGivenTypesOnly(@Nonnull StoreProvider provider) {
+        final Event fancy = new FancyEvent("BAR", UUID.randomUUID());
+        final List<Event> expected = asList(new SampleEvent("FOO"), fancy, new SampleEvent("BAZ"));
+        provider.write(expected.toArray(new Event[0]));
+
+        try (final Stream<Event> stream = provider.readFrom(0, singleton(FancyEvent.class))) {
+            assertIterableEquals(singletonList(fancy), stream.collect(toList()));
+        }
+        try (final Stream<Event> stream = provider.readFrom(0, new HashSet<>(asList(FancyEvent.class,
+                SampleEvent.class)))) {
+            assertIterableEquals(expected, stream.collect(toList()));
+        }
+        try (final Stream<Event> stream = provider.readFrom(0, emptySet())) {
+            assertEquals(0, stream.count());
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("createProviders")
     void shouldReadEventStreamByUuid(@Nonnull StoreProvider provider) {
@@ -84,6 +138,42 @@ class StoreProviderTest {
         actual.forEach(event -> log.info("Loaded event {}", event));
     }
 
+    @ParameterizedTest
+    @MethodSource("createProviders")
+    void shouldLazilyReadEventStreamByUuid(@Nonnull StoreProvider provider) {
+        final UUID uuid = UUID.randomUUID();
+        final List<Event> expected = asList(new SampleEvent("FOO", uuid), new SampleEvent("BAR", uuid));
+        expected.forEach(provider::write);
+
+        try (final Stream<Event> stream = provider.readStreamBy(uuid)) {
+            assertIterableEquals(expected, stream.collect(toList()));
+        }
+        try (final Stream<Event> stream = provider.readStreamBy(UUID.randomUUID())) {
+            assertEquals(0, stream.count());
+        }
+        if (provider instanceof SnapshotReader) {
+            try (final Stream<Event> stream = ((SnapshotReader) provider).readStreamBy(uuid, 1)) {
+                assertIterableEquals(expected.subList(1, 2), stream.collect(toList()));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("createProviders")
+    void shouldReadEventStreamByUuidWithSkip(@Nonnull StoreProvider provider) {
+        assumeTrue(provider instanceof SnapshotReader);
+        final UUID uuid = UUID.randomUUID();
+        final List<Event> expected = asList(
+                new SampleEvent("FOO", uuid), new SampleEvent("BAR", uuid), new SampleEvent("BAZ", uuid)
+        );
+        expected.forEach(provider::write);
+
+        final SnapshotReader reader = (SnapshotReader) provider;
+        assertIterableEquals(expected, reader.readBy(uuid, 0));
+        assertIterableEquals(expected.subList(2, 3), reader.readBy(uuid, 2));
+        assertTrue(reader.readBy(uuid, 3).isEmpty());
+    }
+
     @ParameterizedTest
     @MethodSource("createProviders")
     void shouldReadBatchEventWrites(@Nonnull StoreProvider provider) {
@@ -130,6 +220,74 @@ class StoreProviderTest {
         assertDoesNotThrow(() -> provider.write(new SampleEvent("LAZ", uuid, 2)));
     }
 
+    @ParameterizedTest
+    @MethodSource("createProviders")
+    void shouldSuccessfullyWriteVersionedEventStreamsInBatch(@Nonnull StoreProvider provider) {
+        final UUID uuid = UUID.randomUUID();
+        final UUID anotherUuid = UUID.randomUUID();
+        final List<Event> expected = asList(
+                new SampleEvent("FOO", uuid, 0),
+                new SampleEvent("BAR", anotherUuid, 0),
+                new SampleEvent("BAZ", uuid, 1),
+                new SampleEvent("LAZ", uuid)
+        );
+
+        provider.write(expected.toArray(new Event[0]));
+
+        assertEquals(3, provider.readBy(uuid).size());
+        assertEquals(1, provider.readBy(anotherUuid).size());
+        assertDoesNotThrow(() -> provider.write(new SampleEvent("FIZ", uuid, 3), new SampleEvent("BUZ", uuid, 4)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("createProviders")
+    void shouldCountNotVersionedEventsOfBatchInStreamVersion(@Nonnull StoreProvider provider) {
+        final UUID uuid = UUID.randomUUID();
+        provider.write(new SampleEvent("FOO", uuid, 0));
+
+        assertDoesNotThrow(() -> provider.write(new SampleEvent("BAR", uuid), new SampleEvent("BAZ", uuid, 2)));
+        assertThrows(VersionMismatchException.class,
+                () -> provider.write(new SampleEvent("LAZ", uuid), new SampleEvent("FIZ", uuid, 2)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("createProviders")
+    void shouldThrowVersionMismatchExceptionOnBatchWrite(@Nonnull StoreProvider provider) {
+        final UUID uuid = UUID.randomUUID();
+        provider.write(new SampleEvent("FOO", uuid, 0));
+
+        assertThrows(VersionMismatchException.class,
+                () -> provider.write(new SampleEvent("BAR", uuid, 1), new SampleEvent("BAZ", uuid, 1)));
+    }
+
+    @SneakyThrows
+    @ParameterizedTest
+    @MethodSource("createProviders")
+    void concurrentWritesWithoutExpectedVersionShouldNotConflict(@Nonnull StoreProvider provider) {
+        final UUID uuid = UUID.randomUUID();
+        final int rounds = 20;
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 2; writer++) {
+                writers.add(executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        barrier.await();
+                        provider.write(new SampleEvent("FOO", uuid));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2 * rounds, provider.readBy(uuid).size());
+    }
+
     @ParameterizedTest
     @MethodSource("createProviders")
     void shouldDeleteFullStreamByUuid(@Nonnull StoreProvider provider) {
@@ -31,11 +31,27 @@ class DDLFactoryTest {
                 DDLFactory.newDDLProducer(newConnectionMock("PostgreSQL", "FOO")).getClass());
     }
 
+    @Test
+    void newDDLProducerShouldReturnPartitionedDDLProducerOnPositivePartitionSize() {
+        Assertions.assertEquals(PostgresPartitionedDDL.class,
+                DDLFactory.newDDLProducer(newConnectionMock("PostgreSQL", "FOO"), 1000).getClass());
+        Assertions.assertEquals(PostgresDDL.class,
+                DDLFactory.newDDLProducer(newConnectionMock("PostgreSQL", "FOO"), 0).getClass());
+        Assertions.assertEquals(H2DDL.class,
+                DDLFactory.newDDLProducer(newConnectionMock("H2", "FOO"), 1000).getClass());
+    }
+
     @Test
     void newDDLProducerShouldReturnH2DDLProducerOnCorrectValue() {
         Assertions.assertEquals(H2DDL.class, DDLFactory.newDDLProducer(newConnectionMock("H2", "FOO")).getClass());
     }
 
+    @Test
+    void newSnapshotDDLProducerShouldReturnH2DDLProducerOnCorrectValue() {
+        Assertions.assertEquals(H2DDL.class,
+                DDLFactory.newSnapshotDDLProducer(newConnectionMock("H2", "FOO")).getClass());
+    }
+
     @Test
     void newSnapshotDDLProducerShouldThrowIllegalArgumentExceptionOnUnknownValue() {
         Assertions.assertThrows(IllegalArgumentException.class,
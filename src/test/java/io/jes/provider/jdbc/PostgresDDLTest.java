@@ -10,6 +10,23 @@ class PostgresDDLTest {
     @Test
     void postgreDDLShouldHandleInvariants() {
         assertThrows(IllegalArgumentException.class, () -> new PostgresDDL("FOO").createStore(Byte.class));
+        assertThrows(IllegalArgumentException.class, () -> new PostgresDDL("FOO").createSnapshotStore(Byte.class));
+        assertTrue(new PostgresDDL("FOO").createSnapshotStore(byte[].class).contains("data BYTEA NOT NULL"));
     }
 
-}
\ No newline at end of file
+    @Test
+    void postgreDDLShouldDropUuidIndexOnlyAfterValidUuidVersionIndexIsBuilt() {
+        final String ddl = new PostgresDDL("foo").createStore(String.class);
+        final String dropUuidIndex = "DROP INDEX IF EXISTS foo.uuid_idx";
+        assertTrue(ddl.contains("indexrelid = to_regclass('foo.uuid_version_idx') AND indisvalid) THEN "
+                + dropUuidIndex));
+        assertEquals(1, ddl.split(dropUuidIndex, -1).length - 1);
+        assertTrue(ddl.indexOf("NOT indisvalid) THEN DROP INDEX foo.uuid_version_idx")
+                < ddl.indexOf("CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uuid_version_idx"));
+        // versions are filled apart from the store ddl, only if there are events without version
+        assertFalse(ddl.contains("UPDATE"));
+        assertTrue(new PostgresDDL("foo").fillVersions().contains("COALESCE(MAX(m.version) + 1, 0)"));
+        assertNull(new PostgresPartitionedDDL("foo", 10).fillVersions());
+    }
+
+}
@@ -0,0 +1,37 @@
+package io.jes.provider.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostgresPartitionedDDLTest {
+
+    @Test
+    void shouldProducePartitionsByEventIdRanges() {
+        final PostgresPartitionedDDL ddl = new PostgresPartitionedDDL("foo", 1000);
+
+        assertTrue(ddl.createStore(byte[].class).contains("PARTITION BY RANGE (id)"));
+        assertFalse(ddl.createStore(String.class).contains("PARTITION OF"));
+        assertEquals("foo.event_store_p2", ddl.partitionName(2));
+        // partition is attached, not created as PARTITION OF, to avoid ACCESS EXCLUSIVE lock of the whole store
+        assertEquals("CREATE TABLE IF NOT EXISTS foo.event_store_p2 "
+                + "(LIKE foo.event_store INCLUDING DEFAULTS INCLUDING CONSTRAINTS);"
+                + "ALTER TABLE foo.event_store_p2 ADD CONSTRAINT event_store_p2_range CHECK (id >= 2000 AND id < 3000);"
+                + "ALTER TABLE foo.event_store ATTACH PARTITION foo.event_store_p2 FOR VALUES FROM (2000) TO (3000);"
+                + "ALTER TABLE foo.event_store_p2 DROP CONSTRAINT event_store_p2_range;", ddl.createPartition(2));
+        assertEquals("ALTER TABLE foo.event_store DETACH PARTITION foo.event_store_p2 CONCURRENTLY;",
+                ddl.detachPartition(2));
+        assertEquals("ALTER TABLE foo.event_store DETACH PARTITION foo.event_store_p2 FINALIZE;",
+                ddl.finalizeDetachPartition(2));
+    }
+
+    @Test
+    void shouldHandleInvariants() {
+        assertThrows(IllegalArgumentException.class, () -> new PostgresPartitionedDDL("foo", 0));
+        assertThrows(IllegalArgumentException.class, () -> new PostgresPartitionedDDL("foo", 1).createStore(Byte.class));
+    }
+
+}
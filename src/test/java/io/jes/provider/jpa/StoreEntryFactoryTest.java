@@ -45,8 +45,15 @@ class StoreEntryFactoryTest {
         final String stringPayload = "";
         final byte[] bytePayload = new byte[0];
 
-        assertEquals(new StoreBinaryEntry(uuid, bytePayload), StoreEntryFactory.newEntry(uuid, bytePayload));
-        assertEquals(new StoreStringEntry(uuid, stringPayload), StoreEntryFactory.newEntry(uuid, stringPayload));
+        final StoreEntry binaryEntry = StoreEntryFactory.newEntry(uuid, bytePayload);
+        final StoreEntry stringEntry = StoreEntryFactory.newEntry(uuid, stringPayload);
+        final StoreEntry versionedEntry = StoreEntryFactory.newEntry(uuid, 1L, stringPayload);
+        final StoreEntry typedEntry = StoreEntryFactory.newEntry(uuid, 1L, "FOO", stringPayload);
+        assertEquals(new StoreBinaryEntry(uuid, null, null, bytePayload), binaryEntry);
+        assertEquals(new StoreStringEntry(uuid, null, null, stringPayload), stringEntry);
+        assertEquals(new StoreStringEntry(uuid, 1L, null, stringPayload), versionedEntry);
+        assertEquals(new StoreStringEntry(uuid, 1L, "FOO", stringPayload), typedEntry);
+        assertEquals("FOO", typedEntry.getType());
     }
 
 }
\ No newline at end of file
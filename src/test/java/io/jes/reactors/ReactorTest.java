@@ -1,9 +1,15 @@
 package io.jes.reactors;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
+import javax.sql.DataSource;
 
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
@@ -21,9 +27,13 @@ import io.jes.provider.InMemoryStoreProvider;
 import io.jes.provider.JdbcStoreProvider;
 import lombok.SneakyThrows;
 
+import static io.jes.internal.FancyStuff.newH2DataSource;
 import static io.jes.internal.FancyStuff.newPostgresDataSource;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -129,6 +139,114 @@ class ReactorTest {
         } catch (Exception ignored) {}
     }
 
+    @Test
+    @SneakyThrows
+    void gapSafeReactorShouldWaitForGapInIdsTillTimeout() {
+        final Offset offset = new InMemoryOffset();
+        final List<String> handled = new CopyOnWriteArrayList<>();
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(newH2DataSource(), String.class);
+        final JEventStore store = new JEventStore(provider);
+
+        final UUID uuid = UUID.randomUUID();
+        final UUID lost = UUID.randomUUID();
+        store.write(new Events.SampleEvent("FOO", uuid));
+        store.write(new Events.SampleEvent("BAR", lost));
+        store.write(new Events.SampleEvent("BAZ", uuid));
+        // id 2 is never going to be committed
+        store.deleteBy(lost);
+
+        final Duration gapTimeout = Duration.ofMillis(1000);
+        try (final Reactor reactor = new Reactor(store, offset, new SyncCommandBus(), gapTimeout) {
+
+            @ReactsOn
+            @SuppressWarnings("unused")
+            private void handle(Events.SampleEvent event) {
+                handled.add(event.getName());
+            }
+        }) {
+            final String key = reactor.getKey();
+            TimeUnit.MILLISECONDS.sleep(500);
+            assertIterableEquals(singletonList("FOO"), handled);
+            assertEquals(1, offset.value(key));
+
+            TimeUnit.MILLISECONDS.sleep(1000);
+            assertIterableEquals(asList("FOO", "BAZ"), handled);
+            // offset is an id of the last handled event
+            assertEquals(3, offset.value(key));
+        }
+        provider.close();
+    }
+
+    @Test
+    @SneakyThrows
+    void gapSafeReactorShouldSkipOldGapsAtOnce() {
+        final Offset offset = new InMemoryOffset();
+        final List<String> handled = new CopyOnWriteArrayList<>();
+        final DataSource dataSource = newH2DataSource();
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(dataSource, String.class);
+        final JEventStore store = new JEventStore(provider);
+
+        final UUID lost = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            store.write(new Events.SampleEvent("FOO" + i));
+            store.write(new Events.SampleEvent("BAR" + i, lost));
+        }
+        // ids 2, 4, 6, 8 and 10 are never going to be committed, and events after them were written long ago
+        store.deleteBy(lost);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "UPDATE event_store SET created = TIMESTAMP '2000-01-01 00:00:00'")) {
+            statement.executeUpdate();
+        }
+
+        try (final Reactor reactor = new Reactor(store, offset, new SyncCommandBus(), Duration.ofMinutes(1)) {
+
+            @ReactsOn
+            @SuppressWarnings("unused")
+            private void handle(Events.SampleEvent event) {
+                handled.add(event.getName());
+            }
+        }) {
+            TimeUnit.MILLISECONDS.sleep(500);
+            assertIterableEquals(asList("FOO0", "FOO1", "FOO2", "FOO3", "FOO4"), handled);
+            assertEquals(9, offset.value(reactor.getKey()));
+        }
+        provider.close();
+    }
+
+    @Test
+    @SneakyThrows
+    void gapSafeReactorShouldNotDeserializeEventsItDoesNotReactOn() {
+        final Offset offset = new InMemoryOffset();
+        final List<String> handled = new CopyOnWriteArrayList<>();
+        final DataSource dataSource = newH2DataSource();
+        final JdbcStoreProvider<String> provider = new JdbcStoreProvider<>(dataSource, String.class);
+        final JEventStore store = new JEventStore(provider);
+
+        store.write(new Events.SampleEvent("FOO"));
+        // event of type, unknown to this reader, is skipped by its type name, so it's never deserialized
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO event_store (type, data) VALUES ('io.jes.UnknownEvent', 'not an event')")) {
+            statement.executeUpdate();
+        }
+        store.write(new Events.SampleEvent("BAR"));
+
+        try (final Reactor reactor = new Reactor(store, offset, new SyncCommandBus(), Duration.ofMinutes(1)) {
+
+            @ReactsOn
+            @SuppressWarnings("unused")
+            private void handle(Events.SampleEvent event) {
+                handled.add(event.getName());
+            }
+        }) {
+            TimeUnit.MILLISECONDS.sleep(500);
+            assertIterableEquals(asList("FOO", "BAR"), handled);
+            assertEquals(3, offset.value(reactor.getKey()));
+        }
+        provider.close();
+    }
+
     @SuppressWarnings("unused")
     static class SampleReactor extends Reactor {
 
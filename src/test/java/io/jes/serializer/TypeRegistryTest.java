@@ -28,6 +28,17 @@ class TypeRegistryTest {
         Assertions.assertEquals(Collections.<Class<?>, String>emptyMap(), new TypeRegistry().getAliases());
     }
 
+    @Test
+    void shouldResolveTypeNameByAliasOrClassName() {
+        final TypeRegistry registry = new TypeRegistry();
+        registry.addAlias(Events.SampleEvent.class, "Sample");
+
+        Assertions.assertEquals("Sample", registry.typeNameOf(Events.SampleEvent.class));
+        Assertions.assertEquals(Events.FancyEvent.class.getName(), registry.typeNameOf(Events.FancyEvent.class));
+        Assertions.assertSame(registry, TypeRegistry.typeRegistryOf(SerializationOptions.USE_TYPE_ALIASES, registry));
+        Assertions.assertNotNull(TypeRegistry.typeRegistryOf());
+    }
+
     @Test
     @SuppressWarnings("ConstantConditions")
     void shouldHandleInvariants() {
@@ -0,0 +1,66 @@
+package io.jes.snapshot;
+
+import java.util.UUID;
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import io.jes.AggregateStore;
+import io.jes.JEventStore;
+import io.jes.internal.Events;
+import io.jes.internal.FancyAggregate;
+import io.jes.provider.JdbcStoreProvider;
+
+import static io.jes.internal.FancyStuff.newH2DataSource;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JdbcSnapshotProviderTest {
+
+    @Test
+    void snapshotOfOlderStreamVersionShouldNotOverwriteNewerOne() {
+        final DataSource dataSource = newH2DataSource();
+        final JEventStore eventStore = new JEventStore(new JdbcStoreProvider<>(dataSource, String.class));
+        final AggregateStore aggregateStore = new AggregateStore(eventStore);
+        final JdbcSnapshotProvider<String> provider = new JdbcSnapshotProvider<>(dataSource, String.class);
+
+        final UUID uuid = UUID.randomUUID();
+        eventStore.write(new Events.SampleEvent("FOO", uuid));
+        eventStore.write(new Events.FancyEvent("BAR", uuid));
+        final FancyAggregate older = aggregateStore.readBy(uuid, FancyAggregate.class);
+        eventStore.write(new Events.FancyEvent("BAZ", uuid));
+        final FancyAggregate newer = aggregateStore.readBy(uuid, FancyAggregate.class);
+
+        provider.snapshot(older);
+        assertEquals(older, provider.initialStateOf(uuid, FancyAggregate.class));
+
+        provider.snapshot(newer);
+        // i.e. slow writer, that loaded aggregate before the last event was written
+        provider.snapshot(older);
+
+        final FancyAggregate snapshot = provider.initialStateOf(uuid, FancyAggregate.class);
+        assertEquals("BAZ", snapshot.getFancyName());
+        assertEquals(3, snapshot.streamVersion());
+
+        provider.reset(uuid);
+        provider.snapshot(older);
+        assertEquals(2, provider.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+    }
+
+    @Test
+    void shouldStoreBinarySnapshots() {
+        final JdbcSnapshotProvider<byte[]> provider = new JdbcSnapshotProvider<>(newH2DataSource(), byte[].class);
+        final FancyAggregate aggregate = new FancyAggregate(UUID.randomUUID());
+        aggregate.setFancyName("FOO");
+        aggregate.setCancelled(true);
+
+        provider.snapshot(aggregate);
+        assertEquals(aggregate, provider.initialStateOf(aggregate.uuid(), FancyAggregate.class));
+
+        aggregate.setFancyName("BAR");
+        provider.snapshot(aggregate);
+        assertEquals(aggregate, provider.initialStatesOf(singletonList(aggregate.uuid()), FancyAggregate.class)
+                .get(aggregate.uuid()));
+    }
+
+}
@@ -0,0 +1,107 @@
+package io.jes.snapshot;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.jes.internal.FancyAggregate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotPolicyTest {
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    void shouldHandleItsInvariants() {
+        assertThrows(IllegalArgumentException.class, () -> SnapshotPolicy.everyEvents(0));
+        assertThrows(IllegalArgumentException.class, () -> SnapshotPolicy.minStreamLength(-1));
+        assertThrows(IllegalArgumentException.class, () -> SnapshotPolicy.minInterval(Duration.ofSeconds(-1)));
+        assertThrows(NullPointerException.class, () -> SnapshotPolicy.minInterval(null));
+        assertThrows(NullPointerException.class, () -> SnapshotPolicy.always().and(null));
+        assertThrows(NullPointerException.class, () -> SnapshotPolicy.always().or(null));
+    }
+
+    @Test
+    void shouldDecideByCountOfAppliedEvents() {
+        final FancyAggregate aggregate = new FancyAggregate(UUID.randomUUID());
+        assertTrue(SnapshotPolicy.always().shouldSnapshot(aggregate, 1));
+        assertFalse(SnapshotPolicy.never().shouldSnapshot(aggregate, 100));
+
+        final SnapshotPolicy policy = SnapshotPolicy.everyEvents(10);
+        assertFalse(policy.shouldSnapshot(aggregate, 9));
+        assertTrue(policy.shouldSnapshot(aggregate, 10));
+
+        // restored aggregate has stream version 0, so it's stream is shorter than any positive threshold
+        assertTrue(SnapshotPolicy.minStreamLength(0).shouldSnapshot(aggregate, 1));
+        assertFalse(SnapshotPolicy.minStreamLength(1).shouldSnapshot(aggregate, 1));
+        assertTrue(SnapshotPolicy.minStreamLength(1).or(policy).shouldSnapshot(aggregate, 10));
+        assertFalse(SnapshotPolicy.minStreamLength(1).and(policy).shouldSnapshot(aggregate, 10));
+    }
+
+    @Test
+    void shouldSnapshotAggregateAtMostOncePerInterval() {
+        final AtomicLong clock = new AtomicLong();
+        final SnapshotPolicy policy = new IntervalSnapshotPolicy(Duration.ofNanos(100), clock::get);
+        final FancyAggregate foo = new FancyAggregate(UUID.randomUUID());
+        final FancyAggregate bar = new FancyAggregate(UUID.randomUUID());
+
+        assertTrue(policy.shouldSnapshot(foo, 1));
+        policy.onSnapshot(foo);
+        assertTrue(policy.shouldSnapshot(bar, 1));
+        policy.onSnapshot(bar);
+        clock.set(99);
+        assertFalse(policy.shouldSnapshot(foo, 1));
+        clock.set(100);
+        assertTrue(policy.shouldSnapshot(foo, 1));
+        assertTrue(policy.shouldSnapshot(bar, 1));
+        policy.onSnapshot(foo);
+        assertFalse(policy.shouldSnapshot(foo, 1));
+    }
+
+    @Test
+    void vetoedSnapshotShouldNotBlockInterval() {
+        final AtomicLong clock = new AtomicLong();
+        final IntervalSnapshotPolicy interval = new IntervalSnapshotPolicy(Duration.ofNanos(100), clock::get);
+        final SnapshotPolicy policy = interval.and(SnapshotPolicy.everyEvents(10));
+        final FancyAggregate foo = new FancyAggregate(UUID.randomUUID());
+
+        assertFalse(policy.shouldSnapshot(foo, 1));
+        // not snapshotted, so the interval doesn't start
+        assertTrue(policy.shouldSnapshot(foo, 10));
+        policy.onSnapshot(foo);
+        assertFalse(policy.shouldSnapshot(foo, 10));
+        assertEquals(1, interval.tracked());
+
+        final IntervalSnapshotPolicy other = new IntervalSnapshotPolicy(Duration.ofNanos(100), clock::get);
+        SnapshotPolicy.never().or(other).onSnapshot(foo);
+        assertEquals(1, other.tracked());
+    }
+
+    @Test
+    void expiredSnapshotTimesShouldBePurgedInAmortizedBatches() {
+        final AtomicLong clock = new AtomicLong();
+        final IntervalSnapshotPolicy policy = new IntervalSnapshotPolicy(Duration.ofNanos(100), clock::get);
+        for (int i = 0; i < 10_000; i++) {
+            policy.onSnapshot(new FancyAggregate(UUID.randomUUID()));
+        }
+        assertEquals(10_000, policy.tracked());
+
+        clock.set(100);
+        policy.onSnapshot(new FancyAggregate(UUID.randomUUID()));
+        assertEquals(1, policy.tracked());
+
+        for (int i = 0; i < 10_000; i++) {
+            policy.onSnapshot(new FancyAggregate(UUID.randomUUID()));
+        }
+        // nothing is expired yet, so the next purge is postponed till the count of tracked aggregates doubles
+        clock.set(200);
+        policy.onSnapshot(new FancyAggregate(UUID.randomUUID()));
+        assertEquals(10_002, policy.tracked());
+    }
+
+}
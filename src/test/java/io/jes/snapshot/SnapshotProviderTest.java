@@ -1,6 +1,7 @@
 package io.jes.snapshot;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 import javax.annotation.Nonnull;
 
@@ -18,6 +19,7 @@ import io.jes.internal.FancyAggregate;
 import io.jes.provider.JdbcStoreProvider;
 import lombok.SneakyThrows;
 
+import static io.jes.internal.FancyStuff.newH2DataSource;
 import static io.jes.internal.FancyStuff.newPostgresDataSource;
 import static io.jes.internal.FancyStuff.newRedissonClient;
 import static java.util.Arrays.asList;
@@ -35,7 +37,13 @@ class SnapshotProviderTest {
     private static final Collection<SnapshotProvider> SNAPSHOT_PROVIDERS = asList(
             new InMemorySnapshotProvider(),
             new JdbcSnapshotProvider<>(newPostgresDataSource(), String.class),
-            new RedissonSnapshotProvider(newRedissonClient())
+            new JdbcSnapshotProvider<>(newH2DataSource(), String.class),
+            new JdbcSnapshotProvider<>(newPostgresDataSource("binary_snapshots"), byte[].class),
+            new JdbcSnapshotProvider<>(newH2DataSource(), byte[].class),
+            new RedissonSnapshotProvider(newRedissonClient()),
+            new TieredSnapshotProvider(
+                    new InMemorySnapshotProvider(), new JdbcSnapshotProvider<>(newH2DataSource(), byte[].class)
+            )
     );
 
     private static Collection<SnapshotProvider> createSnapshotProviders() {
@@ -89,6 +97,28 @@ class SnapshotProviderTest {
         assertEquals(sample.uuid(), target.uuid());
     }
 
+    @ParameterizedTest
+    @MethodSource("createSnapshotProviders")
+    void shouldReturnInitialStatesOfManyAggregates(@Nonnull SnapshotProvider provider) {
+        final FancyAggregate foo = new FancyAggregate(randomUUID());
+        foo.setFancyName("FOO");
+        final FancyAggregate bar = new FancyAggregate(randomUUID());
+        bar.setFancyName("BAR");
+        provider.snapshot(foo);
+        provider.snapshot(bar);
+        final UUID unknown = randomUUID();
+
+        final Map<UUID, FancyAggregate> states = provider.initialStatesOf(
+                asList(foo.uuid(), bar.uuid(), unknown), FancyAggregate.class
+        );
+
+        assertEquals(3, states.size());
+        assertEquals(foo, states.get(foo.uuid()));
+        assertEquals(bar, states.get(bar.uuid()));
+        assertNull(states.get(unknown).getFancyName());
+        assertEquals(0, states.get(unknown).streamVersion());
+    }
+
     @ParameterizedTest
     @MethodSource("createSnapshotProviders")
     void resetShouldNotThrowAnyExceptionsIfUuidProvided(@Nonnull SnapshotProvider provider) {
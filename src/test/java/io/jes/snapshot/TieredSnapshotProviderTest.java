@@ -0,0 +1,152 @@
+package io.jes.snapshot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.listener.MessageListener;
+
+import io.jes.Aggregate;
+import io.jes.AggregateStore;
+import io.jes.JEventStore;
+import io.jes.internal.Events;
+import io.jes.internal.FancyAggregate;
+import io.jes.provider.JdbcStoreProvider;
+
+import static io.jes.internal.FancyStuff.newH2DataSource;
+import static java.util.Arrays.asList;
+import static java.util.UUID.randomUUID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TieredSnapshotProviderTest {
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    void shouldHandleItsInvariants() {
+        assertThrows(NullPointerException.class, () -> new TieredSnapshotProvider((SnapshotProvider[]) null));
+        assertThrows(NullPointerException.class, () -> new TieredSnapshotProvider(new InMemorySnapshotProvider(), null));
+        assertThrows(IllegalArgumentException.class, TieredSnapshotProvider::new);
+    }
+
+    @Test
+    void shouldReadThroughAndPopulateFasterTiers() {
+        final DataSource dataSource = newH2DataSource();
+        final JEventStore eventStore = new JEventStore(new JdbcStoreProvider<>(dataSource, String.class));
+        final JdbcSnapshotProvider<byte[]> shared = new JdbcSnapshotProvider<>(dataSource, byte[].class);
+        final InMemorySnapshotProvider local = new InMemorySnapshotProvider();
+        final AggregateStore aggregateStore = new AggregateStore(eventStore, new TieredSnapshotProvider(local, shared));
+
+        final UUID foo = randomUUID();
+        final UUID bar = randomUUID();
+        eventStore.write(new Events.SampleEvent("FOO", foo));
+        eventStore.write(new Events.FancyEvent("FOO", foo));
+        eventStore.write(new Events.SampleEvent("BAR", bar));
+        eventStore.write(new Events.FancyEvent("BAR", bar));
+
+        final FancyAggregate aggregate = aggregateStore.readBy(foo, FancyAggregate.class);
+        aggregateStore.readBy(bar, FancyAggregate.class);
+        // written through both tiers
+        assertEquals(aggregate, local.initialStateOf(foo, FancyAggregate.class));
+        assertEquals(aggregate, shared.initialStateOf(foo, FancyAggregate.class));
+
+        // i.e. restarted instance with cold local tier
+        final InMemorySnapshotProvider coldLocal = new InMemorySnapshotProvider();
+        final TieredSnapshotProvider provider = new TieredSnapshotProvider(coldLocal, shared);
+        assertEquals(aggregate, provider.initialStateOf(foo, FancyAggregate.class));
+        assertEquals(aggregate, coldLocal.initialStateOf(foo, FancyAggregate.class));
+
+        final UUID unknown = randomUUID();
+        final Map<UUID, FancyAggregate> states = provider.initialStatesOf(asList(foo, bar, unknown),
+                FancyAggregate.class);
+        assertEquals(3, states.size());
+        assertEquals(aggregate, states.get(foo));
+        assertEquals("BAR", states.get(bar).getFancyName());
+        assertEquals(0, states.get(unknown).streamVersion());
+        assertEquals(2, coldLocal.initialStateOf(bar, FancyAggregate.class).streamVersion());
+
+        provider.reset(foo);
+        assertEquals(0, coldLocal.initialStateOf(foo, FancyAggregate.class).streamVersion());
+        assertEquals(0, shared.initialStateOf(foo, FancyAggregate.class).streamVersion());
+        assertNull(provider.initialStateOf(foo, FancyAggregate.class).getFancyName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resetShouldInvalidateFasterTiersOfOtherInstances() {
+        final List<MessageListener<String>> listeners = new ArrayList<>();
+        final RTopic topic = mock(RTopic.class);
+        when(topic.addListener(eq(String.class), any(MessageListener.class))).thenAnswer(invocation -> {
+            listeners.add(invocation.getArgument(1));
+            return listeners.size() - 1;
+        });
+        when(topic.publish(any())).thenAnswer(invocation -> {
+            listeners.forEach(listener -> listener.onMessage("invalidations", invocation.getArgument(0)));
+            return (long) listeners.size();
+        });
+        doAnswer(invocation -> listeners.set(invocation.getArgument(0), (channel, message) -> { }))
+                .when(topic).removeListener(anyInt());
+
+        final DataSource dataSource = newH2DataSource();
+        final JEventStore eventStore = new JEventStore(new JdbcStoreProvider<>(dataSource, String.class));
+        final JdbcSnapshotProvider<byte[]> shared = new JdbcSnapshotProvider<>(dataSource, byte[].class);
+        final InMemorySnapshotProvider fooLocal = new InMemorySnapshotProvider();
+        final InMemorySnapshotProvider barLocal = new InMemorySnapshotProvider();
+        final TieredSnapshotProvider fooInstance = new TieredSnapshotProvider(topic, fooLocal, shared);
+        final TieredSnapshotProvider barInstance = new TieredSnapshotProvider(topic, barLocal, shared);
+
+        final UUID uuid = randomUUID();
+        eventStore.write(new Events.SampleEvent("FOO", uuid));
+        eventStore.write(new Events.FancyEvent("FOO", uuid));
+        final FancyAggregate aggregate = new AggregateStore(eventStore, fooInstance).readBy(uuid, FancyAggregate.class);
+        assertEquals(2, barInstance.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+        assertEquals(2, barLocal.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+
+        fooInstance.reset(uuid);
+        assertEquals(0, fooLocal.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+        assertEquals(0, barLocal.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+        assertEquals(0, barInstance.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+
+        // closed instance is not invalidated anymore
+        barInstance.close();
+        barLocal.snapshot(aggregate);
+        fooInstance.reset(uuid);
+        assertEquals(2, barLocal.initialStateOf(uuid, FancyAggregate.class).streamVersion());
+    }
+
+    @Test
+    void localTierShouldExpireSnapshotsAfterWrite() {
+        final AtomicLong clock = new AtomicLong();
+        final InMemorySnapshotProvider local = new InMemorySnapshotProvider(100, aggregate -> 1,
+                Duration.ofSeconds(1).toNanos(), clock::get);
+        final UUID uuid = randomUUID();
+        final Aggregate aggregate = mock(Aggregate.class);
+        when(aggregate.uuid()).thenReturn(uuid);
+        when(aggregate.streamVersion()).thenReturn(2L);
+        local.snapshot(aggregate);
+
+        clock.set(Duration.ofMillis(999).toNanos());
+        assertSame(aggregate, local.initialStateOf(uuid, Aggregate.class));
+        clock.set(Duration.ofSeconds(1).toNanos());
+        assertEquals(0, local.initialStateOf(uuid, Aggregate.class).streamVersion());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new InMemorySnapshotProvider(100, snapshot -> 1, Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> new InMemorySnapshotProvider(100, snapshot -> 1, null));
+    }
+
+}
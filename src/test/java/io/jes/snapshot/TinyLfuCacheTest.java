@@ -0,0 +1,128 @@
+package io.jes.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.SneakyThrows;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TinyLfuCacheTest {
+
+    @Test
+    @SuppressWarnings("ConstantConditions")
+    void shouldHandleItsInvariants() {
+        assertThrows(IllegalArgumentException.class, () -> new TinyLfuCache<String, String>(0, value -> 1));
+        assertThrows(NullPointerException.class, () -> new TinyLfuCache<String, String>(1, null));
+        final TinyLfuCache<String, String> cache = new TinyLfuCache<>(10, value -> -1);
+        assertThrows(IllegalArgumentException.class, () -> cache.put("FOO", "BAR"));
+    }
+
+    @Test
+    void shouldPutGetAndRemoveEntries() {
+        final TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, String::length);
+        cache.put("FOO", "BAR");
+        assertEquals("BAR", cache.get("FOO"));
+        cache.put("FOO", "BAZZ");
+        assertEquals("BAZZ", cache.get("FOO"));
+        assertEquals(4, cache.weight());
+        cache.remove("FOO");
+        assertNull(cache.get("FOO"));
+        assertEquals(0, cache.weight());
+
+        // heavier, than the whole cache
+        cache.put("FOO", new String(new char[101]));
+        assertNull(cache.get("FOO"));
+    }
+
+    @Test
+    void rejectedCandidateShouldNotEvictAnything() {
+        // single segment with window of weight 1 and main region of weight 99
+        final TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100, Integer::longValue);
+        cache.put("FOO", 49);
+        cache.put("BAR", 50);
+        for (int i = 0; i < 5; i++) {
+            cache.get("BAR");
+        }
+        for (int i = 0; i < 3; i++) {
+            cache.get("BAZ");
+        }
+        // BAZ is more frequent, than FOO, but not than BAR, and it needs both of them evicted
+        cache.put("BAZ", 50);
+        assertNull(cache.get("BAZ"));
+        assertEquals(49, cache.get("FOO"));
+        assertEquals(50, cache.get("BAR"));
+        assertEquals(99, cache.weight());
+
+        for (int i = 0; i < 5; i++) {
+            cache.get("BAZ");
+        }
+        // BAZ is more frequent, than both of them now
+        cache.put("BAZ", 50);
+        assertEquals(50, cache.get("BAZ"));
+        assertNull(cache.get("FOO"));
+        assertNull(cache.get("BAR"));
+        assertEquals(50, cache.weight());
+    }
+
+    @Test
+    void frequentlyReadEntriesShouldSurviveScan() {
+        final TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000, value -> 1);
+        for (int i = 0; i < 500; i++) {
+            cache.put(i, i);
+            for (int j = 0; j < 5; j++) {
+                cache.get(i);
+            }
+        }
+        // one-hit entries, i.e. full scan of the store, while hot entries are still read
+        for (int i = 1000; i < 100_000; i++) {
+            cache.get(i);
+            cache.put(i, i);
+            if (i % 4 == 0) {
+                cache.get(i / 4 % 500);
+            }
+        }
+
+        int hits = 0;
+        for (int i = 0; i < 500; i++) {
+            if (cache.get(i) != null) {
+                hits++;
+            }
+        }
+        assertTrue(hits > 450, "Hot entries were evicted by scan: " + hits + " of 500 left");
+        assertTrue(cache.weight() <= 1000);
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldStayBoundedUnderConcurrentAccess() {
+        final TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000, value -> value % 10);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    final int key = ThreadLocalRandom.current().nextInt(5000);
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(cache.weight() <= 1000);
+    }
+
+}
@@ -0,0 +1,224 @@
+package io.jes.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+import org.junit.jupiter.api.Test;
+
+import io.jes.Aggregate;
+import lombok.SneakyThrows;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WriteBehindSnapshotProviderTest {
+
+    @Test
+    @SuppressWarnings({"ConstantConditions", "resource"})
+    void shouldHandleItsInvariants() {
+        assertThrows(NullPointerException.class, () -> new WriteBehindSnapshotProvider(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new WriteBehindSnapshotProvider(new NoopSnapshotProvider(), 0));
+    }
+
+    @Test
+    @SneakyThrows
+    void shouldCoalesceAndDropPendingSnapshots() {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Aggregate> written = new CopyOnWriteArrayList<>();
+        final SnapshotProvider slowProvider = new SnapshotProvider() {
+            @Nonnull
+            @Override
+            @SneakyThrows
+            public <T extends Aggregate> T snapshot(@Nonnull T aggregate) {
+                started.countDown();
+                release.await();
+                written.add(aggregate);
+                return aggregate;
+            }
+        };
+
+        final WriteBehindSnapshotProvider provider = new WriteBehindSnapshotProvider(slowProvider, 1);
+        final Aggregate first = aggregateOf(UUID.randomUUID(), 1);
+        assertSame(first, provider.snapshot(first));
+        // background writer is busy with the first snapshot
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        final UUID uuid = UUID.randomUUID();
+        final Aggregate latest = aggregateOf(uuid, 3);
+        provider.snapshot(aggregateOf(uuid, 1));
+        provider.snapshot(latest);
+        provider.snapshot(aggregateOf(uuid, 2));
+        // queue is full
+        provider.snapshot(aggregateOf(UUID.randomUUID(), 1));
+        assertEquals(1, provider.droppedCount());
+
+        release.countDown();
+        provider.close();
+        assertIterableEquals(asList(first, latest), written);
+    }
+
+    @Test
+    @SneakyThrows
+    void droppedSnapshotShouldNotBlockLaterSnapshots() {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Aggregate> written = new CopyOnWriteArrayList<>();
+        final SnapshotProvider slowProvider = new SnapshotProvider() {
+            @Nonnull
+            @Override
+            @SneakyThrows
+            public <T extends Aggregate> T snapshot(@Nonnull T aggregate) {
+                started.countDown();
+                release.await();
+                written.add(aggregate);
+                return aggregate;
+            }
+        };
+
+        final WriteBehindSnapshotProvider provider = new WriteBehindSnapshotProvider(slowProvider, 1);
+        final Aggregate busy = aggregateOf(UUID.randomUUID(), 1);
+        provider.snapshot(busy);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        final Aggregate queued = aggregateOf(UUID.randomUUID(), 1);
+        provider.snapshot(queued);
+
+        // snapshots of the same aggregate race each other to be merged into the dropped one
+        final UUID uuid = UUID.randomUUID();
+        final List<Aggregate> versions = new ArrayList<>();
+        for (int version = 1; version <= 100; version++) {
+            versions.add(aggregateOf(uuid, version));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<?>> snapshots = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            snapshots.add(executor.submit(() -> {
+                for (int round = 0; round < 100; round++) {
+                    versions.forEach(provider::snapshot);
+                }
+            }));
+        }
+        for (Future<?> snapshot : snapshots) {
+            snapshot.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertTrue(provider.droppedCount() > 0);
+
+        release.countDown();
+        while (!written.contains(queued)) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        final Aggregate latest = aggregateOf(uuid, 101);
+        provider.snapshot(latest);
+        provider.close();
+        assertIterableEquals(asList(busy, queued, latest), written);
+    }
+
+    @Test
+    @SneakyThrows
+    void resetShouldWaitForSnapshotWriteInProgress() {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> operations = new CopyOnWriteArrayList<>();
+        final SnapshotProvider slowProvider = new SnapshotProvider() {
+            @Nonnull
+            @Override
+            @SneakyThrows
+            public <T extends Aggregate> T snapshot(@Nonnull T aggregate) {
+                started.countDown();
+                release.await();
+                operations.add("snapshot");
+                return aggregate;
+            }
+
+            @Override
+            public void reset(@Nonnull UUID uuid) {
+                operations.add("reset");
+            }
+        };
+
+        final WriteBehindSnapshotProvider provider = new WriteBehindSnapshotProvider(slowProvider);
+        final UUID uuid = UUID.randomUUID();
+        provider.snapshot(aggregateOf(uuid, 1));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        final Thread reset = new Thread(() -> provider.reset(uuid));
+        reset.start();
+        // reset must not overtake the write in progress, otherwise the reset snapshot is written back
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertTrue(operations.isEmpty());
+
+        release.countDown();
+        reset.join(TimeUnit.SECONDS.toMillis(1));
+        provider.close();
+        assertIterableEquals(asList("snapshot", "reset"), operations);
+    }
+
+    @Nonnull
+    @Test
+    @SneakyThrows
+    void snapshotsConcurrentWithCloseShouldBeWritten() {
+        final int threads = 4;
+        final int snapshotsPerThread = 200;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int attempt = 0; attempt < 20; attempt++) {
+                final Set<UUID> written = ConcurrentHashMap.newKeySet();
+                final WriteBehindSnapshotProvider provider = new WriteBehindSnapshotProvider(new SnapshotProvider() {
+                    @Nonnull
+                    @Override
+                    public <T extends Aggregate> T snapshot(@Nonnull T aggregate) {
+                        written.add(aggregate.uuid());
+                        return aggregate;
+                    }
+                });
+                final List<Future<List<UUID>>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    results.add(executor.submit(() -> {
+                        final List<UUID> uuids = new ArrayList<>();
+                        for (int j = 0; j < snapshotsPerThread; j++) {
+                            final UUID uuid = UUID.randomUUID();
+                            provider.snapshot(aggregateOf(uuid, 1));
+                            uuids.add(uuid);
+                        }
+                        return uuids;
+                    }));
+                }
+                provider.close();
+                for (Future<List<UUID>> result : results) {
+                    for (UUID uuid : result.get(10, TimeUnit.SECONDS)) {
+                        // either flushed on close or written synchronously after it, but never left pending
+                        assertTrue(written.contains(uuid));
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Aggregate aggregateOf(@Nonnull UUID uuid, long streamVersion) {
+        final Aggregate aggregate = mock(Aggregate.class);
+        when(aggregate.uuid()).thenReturn(uuid);
+        when(aggregate.streamVersion()).thenReturn(streamVersion);
+        return aggregate;
+    }
+
+}
@@ -1,9 +1,11 @@
 package io.jes.util;
 
+import java.sql.BatchUpdateException;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
 
 import org.junit.jupiter.api.Test;
 
@@ -72,4 +74,24 @@ class JdbcUtilsTest {
         assertDoesNotThrow(() -> JdbcUtils.unwrapJdbcType(mock(Blob.class)));
     }
 
-}
\ No newline at end of file
+    @Test
+    void isUniqueViolationShouldDetectUniqueViolationInCauseChain() {
+        final SQLException batchException = new BatchUpdateException();
+        batchException.setNextException(new SQLException("duplicate key", "23505"));
+
+        assertTrue(JdbcUtils.isUniqueViolation(new SQLException("duplicate key", "23505")));
+        assertTrue(JdbcUtils.isUniqueViolation(new IllegalStateException(batchException)));
+        assertFalse(JdbcUtils.isUniqueViolation(new SQLException("syntax error", "42601")));
+        assertFalse(JdbcUtils.isUniqueViolation(null));
+    }
+
+    @Test
+    void isCheckViolationShouldDetectCheckViolationInCauseChain() {
+        final SQLException batchException = new BatchUpdateException();
+        batchException.setNextException(new SQLException("no partition of relation found for row", "23514"));
+
+        assertTrue(JdbcUtils.isCheckViolation(new IllegalStateException(batchException)));
+        assertFalse(JdbcUtils.isCheckViolation(new SQLException("duplicate key", "23505")));
+        assertFalse(JdbcUtils.isCheckViolation(null));
+    }
+}
@@ -38,4 +38,10 @@ class PropsReaderTest {
                 exception.getMessage());
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldFallbackToDefaultValueOnMissingProperty() {
+        assertEquals("FOO", PropsReader.getPropety("bazz", "FOO"));
+        assertEquals("es", PropsReader.getPropety("jes.jdbc.schema-name", "FOO"));
+    }
+
+}